@@ -0,0 +1,105 @@
+package com.cy.easyhttp.loadtest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 并发记录的对数-线性延迟直方图，单位微秒
+ * <p>
+ * 与 HdrHistogram 的分桶方式相同：每个2的幂区间再均分为64个桶，相对误差小于 1/64，
+ * 记录只是一次原子自增，不分配内存。百分位返回所在桶的上界。
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 6;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    /**
+     * 小于 2 * SUB_COUNT 的值各占一个桶
+     */
+    private static final int LINEAR = SUB_COUNT << 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(bucket(Long.MAX_VALUE) + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一个延迟
+     *
+     * @param nanos 纳秒
+     */
+    public void recordNanos(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(bucket(micros));
+        count.incrementAndGet();
+        sum.addAndGet(micros);
+        max.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * @return 记录数
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return 平均值(微秒)
+     */
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+     * @return 最大值(微秒)
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * 获取百分位
+     *
+     * @param percentile 百分位，取值 (0, 100]
+     * @return 延迟(微秒)，没有记录时返回0
+     */
+    public long getPercentile(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * 值所在的桶：[0, 128) 每个值一个桶，之后每个2的幂区间64个桶
+     */
+    private static int bucket(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_COUNT + (int) (value >>> shift) - SUB_COUNT;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < LINEAR) {
+            return bucket;
+        }
+        int shift = bucket / SUB_COUNT - 1;
+        long mantissa = bucket % SUB_COUNT + SUB_COUNT;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
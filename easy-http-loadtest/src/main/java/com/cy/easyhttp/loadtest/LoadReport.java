@@ -0,0 +1,160 @@
+package com.cy.easyhttp.loadtest;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 压测结果
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public final class LoadReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private final String workload;
+    private final long elapsedNanos;
+    private final long completed;
+    private final long missed;
+    private final Map<String, Long> errors;
+    private final LatencyHistogram responseTime;
+    private final LatencyHistogram serviceTime;
+    private final long allocatedBytes;
+    private final long gcCount;
+    private final long gcMillis;
+    private final long connections;
+    private final int peakConnections;
+
+    LoadReport(String workload, long elapsedNanos, long completed, long missed, Map<String, Long> errors,
+               LatencyHistogram responseTime, LatencyHistogram serviceTime, long allocatedBytes,
+               long gcCount, long gcMillis, long connections, int peakConnections) {
+        this.workload = workload;
+        this.elapsedNanos = elapsedNanos;
+        this.completed = completed;
+        this.missed = missed;
+        this.errors = Collections.unmodifiableMap(errors);
+        this.responseTime = responseTime;
+        this.serviceTime = serviceTime;
+        this.allocatedBytes = allocatedBytes;
+        this.gcCount = gcCount;
+        this.gcMillis = gcMillis;
+        this.connections = connections;
+        this.peakConnections = peakConnections;
+    }
+
+    /**
+     * @return 成功完成的调用数
+     */
+    public long getCompleted() {
+        return completed;
+    }
+
+    /**
+     * @return 失败的调用数
+     */
+    public long getErrorCount() {
+        long total = 0;
+        for (Long count : errors.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * @return 按异常类型统计的失败数
+     */
+    public Map<String, Long> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return 开放模型下因未完成请求过多而没有发出的调用数
+     */
+    public long getMissed() {
+        return missed;
+    }
+
+    /**
+     * @return 每秒成功完成的调用数
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : completed * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * 响应时间：从计划发出时间到完成，开放模型下包含排队时间，避免协调遗漏(coordinated omission)
+     */
+    public LatencyHistogram getResponseTime() {
+        return responseTime;
+    }
+
+    /**
+     * 服务时间：从实际发出到完成
+     */
+    public LatencyHistogram getServiceTime() {
+        return serviceTime;
+    }
+
+    /**
+     * @return 调用线程上分配的字节数，当前JVM或线程类型不支持时为-1
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return 测量期间新建的连接数，没有模拟服务时为-1
+     */
+    public long getConnections() {
+        return connections;
+    }
+
+    /**
+     * @return 测量期间同时打开的连接数峰值，没有模拟服务时为-1
+     */
+    public int getPeakConnections() {
+        return peakConnections;
+    }
+
+    @Override
+    public String toString() {
+        double seconds = elapsedNanos / 1e9;
+        long calls = completed + getErrorCount();
+        StringBuilder report = new StringBuilder(512);
+        report.append(workload).append(String.format(Locale.ROOT, ", measured %.1fs%n", seconds));
+        report.append(String.format(Locale.ROOT, "requests     %d ok, %d errors, %d missed, %.1f req/s%n",
+                completed, getErrorCount(), missed, getThroughput()));
+        report.append("latency(ms)  ").append(String.format(Locale.ROOT, "%9s", "mean"));
+        for (double p : PERCENTILES) {
+            report.append(String.format(Locale.ROOT, "%9s", "p" + (p == (long) p ? String.valueOf((long) p) : String.valueOf(p))));
+        }
+        report.append(String.format(Locale.ROOT, "%9s%n", "max"));
+        appendLatency(report, "  response   ", responseTime);
+        appendLatency(report, "  service    ", serviceTime);
+        report.append("allocation   ");
+        if (allocatedBytes >= 0 && calls > 0) {
+            report.append(String.format(Locale.ROOT, "%.1f KB/op, %.1f MB/s (caller threads)",
+                    allocatedBytes / 1024.0 / calls, allocatedBytes / 1048576.0 / seconds));
+        } else {
+            report.append("n/a");
+        }
+        report.append(String.format(Locale.ROOT, "; gc %d times, %d ms%n", gcCount, gcMillis));
+        if (connections >= 0) {
+            report.append(String.format(Locale.ROOT, "connections  %d opened, %d peak%n", connections, peakConnections));
+        }
+        if (!errors.isEmpty()) {
+            report.append("errors       ").append(errors).append(System.lineSeparator());
+        }
+        return report.toString();
+    }
+
+    private static void appendLatency(StringBuilder report, String label, LatencyHistogram histogram) {
+        report.append(label).append(String.format(Locale.ROOT, "%9.3f", histogram.getMean() / 1000));
+        for (double p : PERCENTILES) {
+            report.append(String.format(Locale.ROOT, "%9.3f", histogram.getPercentile(p) / 1000.0));
+        }
+        report.append(String.format(Locale.ROOT, "%9.3f%n", histogram.getMax() / 1000.0));
+    }
+}
@@ -0,0 +1,448 @@
+package com.cy.easyhttp.loadtest;
+
+import com.cy.easyhttp.HttpClient;
+import com.cy.easyhttp.HttpClientConfiguration;
+import com.cy.easyhttp.HttpClientProxyFactory;
+import com.cy.easyhttp.annotation.method.Get;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 针对 {@link HttpClient} 接口的压测工具
+ * <p>
+ * 通过 {@link HttpClientProxyFactory} 创建被测接口，可选地指向进程内的 {@link MockServer}，
+ * 按开放模型(固定到达速率)或封闭模型(固定并发)持续调用，输出延迟百分位、吞吐、分配和连接数。
+ * 开放模型的响应时间从计划发出时间算起，客户端变慢时排队时间也计入，不会低估尾延迟。
+ * <pre>
+ * LoadReport report = LoadTest.newBuilder(UserApi.class, api -&gt; api.getUser(1))
+ *         .server(MockServer.newBuilder().latency(5, 2).responseSize(1024))
+ *         .openModel(2000)
+ *         .duration(30)
+ *         .threads(ThreadMode.VIRTUAL)
+ *         .build()
+ *         .run();
+ * </pre>
+ * 也可以直接运行 main 方法，参数形如 rate=2000 duration=30 threads=virtual latency=5。
+ * 压测工具在单独的 easy-http-loadtest 模块中构建，不包含在 easy-http 的jar里。
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public final class LoadTest<T> {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean ALLOCATION_SUPPORTED = allocationSupported();
+
+    private final Class<T> clazz;
+    private final Consumer<? super T> call;
+    private final Consumer<HttpClientConfiguration.Builder> configuration;
+    private final MockServer.Builder server;
+    private final double rate;
+    private final int concurrency;
+    private final long thinkNanos;
+    private final long durationNanos;
+    private final long warmupNanos;
+    private final ThreadMode threadMode;
+    private final int workers;
+    private final int maxOutstanding;
+
+    /**
+     * 预热结束的时间，之前计划发出的调用不计入结果
+     */
+    private volatile long measureFrom;
+    private final LatencyHistogram responseTime = new LatencyHistogram();
+    private final LatencyHistogram serviceTime = new LatencyHistogram();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder allocated = new LongAdder();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private volatile boolean allocationMeasured = ALLOCATION_SUPPORTED;
+
+    private LoadTest(Builder<T> builder) {
+        this.clazz = builder.clazz;
+        this.call = builder.call;
+        this.configuration = builder.configuration;
+        this.server = builder.server;
+        this.rate = builder.rate;
+        this.concurrency = builder.concurrency;
+        this.thinkNanos = TimeUnit.MILLISECONDS.toNanos(builder.thinkTime);
+        this.durationNanos = TimeUnit.SECONDS.toNanos(builder.duration);
+        this.warmupNanos = TimeUnit.SECONDS.toNanos(builder.warmup);
+        this.threadMode = builder.threadMode;
+        this.workers = builder.workers;
+        this.maxOutstanding = builder.maxOutstanding;
+    }
+
+    public static <T> Builder<T> newBuilder(Class<T> clazz, Consumer<? super T> call) {
+        return new Builder<>(clazz, call);
+    }
+
+    /**
+     * 执行压测，一个实例只能执行一次
+     *
+     * @return 压测结果
+     * @throws IOException 模拟服务启动失败
+     */
+    public LoadReport run() throws IOException {
+        MockServer mock = server == null ? null : server.start();
+        try {
+            // 每次运行都在新的Builder上应用调用方的设置，替换 baseUrl 不影响调用方
+            HttpClientConfiguration.Builder builder = HttpClientConfiguration.newBuilder();
+            if (configuration != null) {
+                configuration.accept(builder);
+            }
+            if (mock != null) {
+                builder.baseUrl(mock.url());
+            }
+            T client = HttpClientProxyFactory.create(clazz, builder.build());
+            return rate > 0 ? runOpen(client, mock) : runClosed(client, mock);
+        } finally {
+            if (mock != null) {
+                mock.close();
+            }
+        }
+    }
+
+    /**
+     * 开放模型：按计划时间发出调用，不等待前一个调用完成
+     */
+    private LoadReport runOpen(T client, MockServer mock) {
+        ExecutorService executor = threadMode.newExecutor(workers, "easy-http-load");
+        AtomicInteger outstanding = new AtomicInteger();
+        long missed = 0;
+        long start = System.nanoTime();
+        measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+        Snapshot before = null;
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * 1e9 / rate);
+            if (intended - end >= 0) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            boolean measured = intended - measureFrom >= 0;
+            if (measured && before == null) {
+                before = Snapshot.take(mock);
+            }
+            if (outstanding.get() >= maxOutstanding) {
+                if (measured) {
+                    missed++;
+                }
+                continue;
+            }
+            outstanding.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    invoke(client, intended);
+                } finally {
+                    outstanding.decrementAndGet();
+                }
+            });
+        }
+        if (before == null) {
+            before = Snapshot.take(mock);
+        }
+        await(executor);
+        String workload = String.format(Locale.ROOT, "open model %.0f req/s, %s threads", rate, describeThreads(workers));
+        return report(workload, before, mock, missed);
+    }
+
+    /**
+     * 封闭模型：固定数量的调用方循环调用
+     */
+    private LoadReport runClosed(T client, MockServer mock) {
+        ExecutorService executor = threadMode.newExecutor(concurrency, "easy-http-load");
+        long start = System.nanoTime();
+        measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+        for (int i = 0; i < concurrency; i++) {
+            executor.execute(() -> {
+                long now;
+                while ((now = System.nanoTime()) - end < 0) {
+                    invoke(client, now);
+                    if (thinkNanos > 0) {
+                        LockSupport.parkNanos(thinkNanos);
+                    }
+                }
+            });
+        }
+        long wait;
+        while ((wait = measureFrom - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(wait);
+        }
+        Snapshot before = Snapshot.take(mock);
+        await(executor);
+        String workload = String.format(Locale.ROOT, "closed model %d callers, think %dms, %s threads",
+                concurrency, TimeUnit.NANOSECONDS.toMillis(thinkNanos), describeThreads(concurrency));
+        return report(workload, before, mock, 0);
+    }
+
+    /**
+     * 执行一次调用并记录
+     *
+     * @param intended 计划发出的时间
+     */
+    private void invoke(T client, long intended) {
+        long allocatedBefore = allocationMeasured ? allocatedBytes() : -1;
+        long start = System.nanoTime();
+        Throwable error = null;
+        try {
+            call.accept(client);
+        } catch (Throwable e) {
+            error = e;
+        }
+        long end = System.nanoTime();
+        if (intended - measureFrom < 0) {
+            return;
+        }
+        if (allocatedBefore >= 0) {
+            long allocatedAfter = allocatedBytes();
+            if (allocatedAfter >= 0) {
+                allocated.add(allocatedAfter - allocatedBefore);
+            } else {
+                allocationMeasured = false;
+            }
+        } else if (allocationMeasured) {
+            // 虚拟线程等不支持按线程统计分配的情况
+            allocationMeasured = false;
+        }
+        if (error != null) {
+            errors.computeIfAbsent(error.getClass().getSimpleName(), k -> new LongAdder()).increment();
+            return;
+        }
+        completed.increment();
+        responseTime.recordNanos(end - intended);
+        serviceTime.recordNanos(end - start);
+    }
+
+    private LoadReport report(String workload, Snapshot before, MockServer mock, long missed) {
+        Snapshot after = Snapshot.take(mock);
+        Map<String, Long> errorCounts = new TreeMap<>();
+        errors.forEach((type, count) -> errorCounts.put(type, count.sum()));
+        return new LoadReport(workload, after.nanos - before.nanos, completed.sum(), missed, errorCounts,
+                responseTime, serviceTime, allocationMeasured ? allocated.sum() : -1,
+                after.gcCount - before.gcCount, after.gcMillis - before.gcMillis,
+                mock == null ? -1 : after.connections - before.connections,
+                mock == null ? -1 : mock.getPeakConnections());
+    }
+
+    private String describeThreads(int platformThreads) {
+        return threadMode == ThreadMode.VIRTUAL ? "virtual" : platformThreads + " platform";
+    }
+
+    private static void await(ExecutorService executor) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.MINUTES)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean allocationSupported() {
+        if (!(THREADS instanceof com.sun.management.ThreadMXBean)) {
+            return false;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            return false;
+        }
+        if (!threads.isThreadAllocatedMemoryEnabled()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+        return true;
+    }
+
+    /**
+     * @return 当前线程累计分配的字节数，不支持时返回-1
+     */
+    @SuppressWarnings("deprecation")
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * 测量开始和结束时的计数
+     */
+    private static final class Snapshot {
+        private final long nanos;
+        private final long gcCount;
+        private final long gcMillis;
+        private final long connections;
+
+        private Snapshot(long nanos, long gcCount, long gcMillis, long connections) {
+            this.nanos = nanos;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+            this.connections = connections;
+        }
+
+        static Snapshot take(MockServer mock) {
+            long count = 0;
+            long millis = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, gc.getCollectionCount());
+                millis += Math.max(0, gc.getCollectionTime());
+            }
+            long connections = 0;
+            if (mock != null) {
+                mock.resetPeak();
+                connections = mock.getAcceptedConnections();
+            }
+            return new Snapshot(System.nanoTime(), count, millis, connections);
+        }
+    }
+
+    public static class Builder<T> {
+        private final Class<T> clazz;
+        private final Consumer<? super T> call;
+        private Consumer<HttpClientConfiguration.Builder> configuration;
+        private MockServer.Builder server;
+        private double rate = 0;
+        private int concurrency = 16;
+        private long thinkTime = 0;
+        private long duration = 30;
+        private long warmup = 5;
+        private ThreadMode threadMode = ThreadMode.PLATFORM;
+        private int workers = 200;
+        private int maxOutstanding = 100_000;
+
+        private Builder(Class<T> clazz, Consumer<? super T> call) {
+            this.clazz = clazz;
+            this.call = call;
+        }
+
+        /**
+         * 被测客户端的配置，如 builder -&gt; builder.maxRequests(64)；运行时应用到新建的Builder上，
+         * 设置了模拟服务时之后再把 baseUrl 替换为模拟服务的地址
+         */
+        public Builder<T> configuration(Consumer<HttpClientConfiguration.Builder> configuration) {
+            this.configuration = configuration;
+            return this;
+        }
+
+        /**
+         * 在进程内启动模拟服务，不设置时请求发往接口配置的地址
+         */
+        public Builder<T> server(MockServer.Builder server) { this.server = server; return this; }
+
+        /**
+         * 开放模型，每秒发出固定数量的调用
+         */
+        public Builder<T> openModel(double ratePerSecond) {
+            if (ratePerSecond <= 0) {
+                throw new IllegalArgumentException("rate must be positive");
+            }
+            this.rate = ratePerSecond;
+            return this;
+        }
+
+        /**
+         * 封闭模型，固定数量的调用方循环调用
+         */
+        public Builder<T> closedModel(int concurrency) {
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("concurrency must be positive");
+            }
+            this.rate = 0;
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * 封闭模型下每次调用后的等待毫秒数
+         */
+        public Builder<T> thinkTime(long millis) { this.thinkTime = millis; return this; }
+
+        /**
+         * 测量时长(秒)
+         */
+        public Builder<T> duration(long seconds) { this.duration = seconds; return this; }
+
+        /**
+         * 预热时长(秒)，预热期间的调用不计入结果
+         */
+        public Builder<T> warmup(long seconds) { this.warmup = seconds; return this; }
+
+        public Builder<T> threads(ThreadMode threadMode) { this.threadMode = threadMode; return this; }
+
+        /**
+         * 开放模型下的平台线程数，虚拟线程时忽略
+         */
+        public Builder<T> workers(int workers) { this.workers = workers; return this; }
+
+        /**
+         * 开放模型下未完成调用的上限，超过时不再发出并计为 missed
+         */
+        public Builder<T> maxOutstanding(int maxOutstanding) { this.maxOutstanding = maxOutstanding; return this; }
+
+        public LoadTest<T> build() {
+            if (clazz == null || call == null) {
+                throw new IllegalArgumentException("client interface and call are required");
+            }
+            return new LoadTest<>(this);
+        }
+    }
+
+    /**
+     * main 方法使用的示例接口
+     */
+    @HttpClient
+    public interface EchoApi {
+        @Get("/echo")
+        Map<String, Object> echo();
+    }
+
+    /**
+     * 对内置的模拟服务压测 {@link EchoApi}
+     * <p>
+     * 参数：rate(开放模型每秒调用数，不设置时为封闭模型) concurrency duration warmup think threads(platform/virtual)
+     * workers latency jitter errorRate size
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        MockServer.Builder server = MockServer.newBuilder()
+                .latency(Long.parseLong(options.getOrDefault("latency", "1")), Long.parseLong(options.getOrDefault("jitter", "0")))
+                .errorRate(Double.parseDouble(options.getOrDefault("errorRate", "0")), 500)
+                .responseSize(Integer.parseInt(options.getOrDefault("size", "256")));
+        Builder<EchoApi> builder = newBuilder(EchoApi.class, EchoApi::echo)
+                .server(server)
+                .duration(Long.parseLong(options.getOrDefault("duration", "10")))
+                .warmup(Long.parseLong(options.getOrDefault("warmup", "2")))
+                .thinkTime(Long.parseLong(options.getOrDefault("think", "0")))
+                .workers(Integer.parseInt(options.getOrDefault("workers", "200")))
+                .threads(ThreadMode.valueOf(options.getOrDefault("threads", "platform").toUpperCase(Locale.ROOT)));
+        if (options.containsKey("rate")) {
+            builder.openModel(Double.parseDouble(options.get("rate")));
+        } else {
+            builder.closedModel(Integer.parseInt(options.getOrDefault("concurrency", "16")));
+        }
+        System.out.print(builder.build().run());
+    }
+}
@@ -0,0 +1,370 @@
+package com.cy.easyhttp.loadtest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 进程内的HTTP/1.1模拟服务，用于压测
+ * <p>
+ * 每个连接一个线程，支持 keep-alive 和分块请求体；所有请求都返回同一个JSON响应，
+ * 可以配置固定延迟、随机抖动、偶发的长尾延迟和错误比例，并统计连接数。
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public class MockServer implements Closeable {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final double spikeRate;
+    private final long spikeNanos;
+    private final double errorRate;
+    private final int errorStatus;
+    private final byte[] body;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger peakOpen = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    private MockServer(Builder builder) throws IOException {
+        this.latencyNanos = TimeUnit.MILLISECONDS.toNanos(builder.latency);
+        this.jitterNanos = TimeUnit.MILLISECONDS.toNanos(builder.jitter);
+        this.spikeRate = builder.spikeRate;
+        this.spikeNanos = TimeUnit.MILLISECONDS.toNanos(builder.spikeLatency);
+        this.errorRate = builder.errorRate;
+        this.errorStatus = builder.errorStatus;
+        this.body = builder.body != null ? builder.body.getBytes(StandardCharsets.UTF_8) : payload(builder.responseSize);
+
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), builder.port), builder.backlog);
+        this.connections = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "easy-http-mock-connection");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.acceptor = new Thread(this::accept, "easy-http-mock-acceptor");
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * @return 服务地址，如 http://127.0.0.1:54321
+     */
+    public String url() {
+        return "http://" + serverSocket.getInetAddress().getHostAddress() + ":" + serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return 累计建立的连接数
+     */
+    public long getAcceptedConnections() {
+        return accepted.get();
+    }
+
+    /**
+     * @return 当前打开的连接数
+     */
+    public int getOpenConnections() {
+        return open.get();
+    }
+
+    /**
+     * @return 同时打开的连接数峰值
+     */
+    public int getPeakConnections() {
+        return peakOpen.get();
+    }
+
+    /**
+     * 把峰值重置为当前连接数，用于预热后重新统计
+     */
+    public void resetPeak() {
+        peakOpen.set(open.get());
+    }
+
+    /**
+     * @return 累计处理的请求数
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return 按错误比例返回错误状态码的请求数
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                accepted.incrementAndGet();
+                int current = open.incrementAndGet();
+                peakOpen.accumulateAndGet(current, Math::max);
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (closed) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 在一个连接上循环处理请求，直到对方关闭
+     */
+    private void serve(Socket socket) {
+        try (Socket s = socket) {
+            s.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(s.getInputStream());
+            OutputStream out = new BufferedOutputStream(s.getOutputStream());
+            StringBuilder line = new StringBuilder(128);
+            while (!closed) {
+                if (!readLine(in, line)) {
+                    return;
+                }
+                if (line.length() == 0) {
+                    continue;
+                }
+                long contentLength = 0;
+                boolean chunked = false;
+                boolean keepAlive = !line.toString().endsWith("HTTP/1.0");
+                while (readLine(in, line) && line.length() > 0) {
+                    String header = line.toString();
+                    int colon = header.indexOf(':');
+                    if (colon < 0) {
+                        continue;
+                    }
+                    String name = header.substring(0, colon).trim();
+                    String value = header.substring(colon + 1).trim();
+                    if ("Content-Length".equalsIgnoreCase(name)) {
+                        contentLength = Long.parseLong(value);
+                    } else if ("Transfer-Encoding".equalsIgnoreCase(name)) {
+                        chunked = value.toLowerCase().contains("chunked");
+                    } else if ("Connection".equalsIgnoreCase(name)) {
+                        keepAlive = !"close".equalsIgnoreCase(value);
+                    }
+                }
+                if (chunked) {
+                    skipChunked(in, line);
+                } else {
+                    skip(in, contentLength);
+                }
+                respond(out, keepAlive);
+                if (!keepAlive) {
+                    return;
+                }
+            }
+        } catch (SocketException | EOFException e) {
+            // 客户端断开连接
+        } catch (IOException e) {
+            // 忽略单个连接的错误
+        } finally {
+            open.decrementAndGet();
+        }
+    }
+
+    private void respond(OutputStream out, boolean keepAlive) throws IOException {
+        requests.incrementAndGet();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = latencyNanos;
+        if (jitterNanos > 0) {
+            delay += random.nextLong(jitterNanos + 1);
+        }
+        if (spikeRate > 0 && random.nextDouble() < spikeRate) {
+            delay += spikeNanos;
+        }
+        if (delay > 0) {
+            LockSupport.parkNanos(delay);
+        }
+        boolean error = errorRate > 0 && random.nextDouble() < errorRate;
+        byte[] content = error ? "{\"error\":\"mock\"}".getBytes(StandardCharsets.UTF_8) : body;
+        if (error) {
+            errors.incrementAndGet();
+        }
+        String head = "HTTP/1.1 " + (error ? errorStatus + " Error" : "200 OK") + "\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Content-Length: " + content.length + "\r\n"
+                + (keepAlive ? "" : "Connection: close\r\n")
+                + "\r\n";
+        out.write(head.getBytes(StandardCharsets.US_ASCII));
+        out.write(content);
+        out.flush();
+    }
+
+    /**
+     * 读取一行(不含CRLF)到 line
+     *
+     * @return 连接已关闭时返回false
+     */
+    private static boolean readLine(InputStream in, StringBuilder line) throws IOException {
+        line.setLength(0);
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                int last = line.length() - 1;
+                if (last >= 0 && line.charAt(last) == '\r') {
+                    line.setLength(last);
+                }
+                return true;
+            }
+            line.append((char) b);
+        }
+        return false;
+    }
+
+    private static void skip(InputStream in, long bytes) throws IOException {
+        while (bytes > 0) {
+            long skipped = in.skip(bytes);
+            if (skipped <= 0) {
+                if (in.read() == -1) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            bytes -= skipped;
+        }
+    }
+
+    private static void skipChunked(InputStream in, StringBuilder line) throws IOException {
+        while (true) {
+            if (!readLine(in, line)) {
+                throw new EOFException();
+            }
+            String size = line.toString();
+            int extension = size.indexOf(';');
+            long length = Long.parseLong((extension < 0 ? size : size.substring(0, extension)).trim(), 16);
+            if (length == 0) {
+                // 跳过 trailer 直到空行
+                while (readLine(in, line) && line.length() > 0) {
+                    // ignore
+                }
+                return;
+            }
+            skip(in, length + CRLF.length);
+        }
+    }
+
+    /**
+     * 生成指定大小的JSON响应体 {"data":"xxx..."}
+     */
+    private static byte[] payload(int size) {
+        String prefix = "{\"data\":\"";
+        String suffix = "\"}";
+        int fill = Math.max(0, size - prefix.length() - suffix.length());
+        char[] chars = new char[fill];
+        Arrays.fill(chars, 'x');
+        return (prefix + new String(chars) + suffix).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    public static class Builder {
+        private int port = 0;           // 默认随机端口
+        private int backlog = 1024;
+        private long latency = 0;
+        private long jitter = 0;
+        private double spikeRate = 0;
+        private long spikeLatency = 0;
+        private double errorRate = 0;
+        private int errorStatus = 500;
+        private int responseSize = 64;
+        private String body;
+
+        private Builder() {
+        }
+
+        public Builder port(int port) { this.port = port; return this; }
+
+        public Builder backlog(int backlog) { this.backlog = backlog; return this; }
+
+        /**
+         * 每个请求的固定延迟，加上 [0, jitter] 毫秒的均匀随机抖动
+         */
+        public Builder latency(long millis, long jitterMillis) {
+            this.latency = millis;
+            this.jitter = jitterMillis;
+            return this;
+        }
+
+        /**
+         * 按比例额外增加的长尾延迟
+         */
+        public Builder spike(double rate, long millis) {
+            if (rate < 0 || rate > 1) {
+                throw new IllegalArgumentException("spike rate must be in [0, 1]");
+            }
+            this.spikeRate = rate;
+            this.spikeLatency = millis;
+            return this;
+        }
+
+        /**
+         * 按比例返回错误状态码
+         */
+        public Builder errorRate(double errorRate, int status) {
+            if (errorRate < 0 || errorRate > 1) {
+                throw new IllegalArgumentException("errorRate must be in [0, 1]");
+            }
+            this.errorRate = errorRate;
+            this.errorStatus = status;
+            return this;
+        }
+
+        /**
+         * 生成的响应体字节数，响应体为 {"data":"xxx..."}
+         */
+        public Builder responseSize(int bytes) { this.responseSize = bytes; return this; }
+
+        /**
+         * 固定的JSON响应体，设置后忽略 responseSize
+         */
+        public Builder body(String json) { this.body = json; return this; }
+
+        /**
+         * 绑定端口并开始接受连接
+         */
+        public MockServer start() throws IOException {
+            return new MockServer(this);
+        }
+    }
+}
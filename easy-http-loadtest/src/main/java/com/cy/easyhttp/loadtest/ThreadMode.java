@@ -0,0 +1,51 @@
+package com.cy.easyhttp.loadtest;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 压测调用线程的类型
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public enum ThreadMode {
+
+    /**
+     * 固定数量的平台线程
+     */
+    PLATFORM,
+
+    /**
+     * 每个任务一个虚拟线程，需要 Java 21+
+     */
+    VIRTUAL;
+
+    /**
+     * 创建执行器
+     *
+     * @param threads 平台线程数，虚拟线程时忽略
+     * @param name    线程名前缀
+     * @return 执行器
+     * @throws UnsupportedOperationException 当前JDK不支持虚拟线程
+     */
+    ExecutorService newExecutor(int threads, String name) {
+        if (this == PLATFORM) {
+            AtomicInteger index = new AtomicInteger();
+            ThreadFactory factory = r -> {
+                Thread thread = new Thread(r, name + "-" + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newFixedThreadPool(threads, factory);
+        }
+        try {
+            // 通过反射调用，保持 Java 8 编译
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21+", e);
+        }
+    }
+}
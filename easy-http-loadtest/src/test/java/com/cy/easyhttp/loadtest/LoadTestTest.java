@@ -0,0 +1,54 @@
+package com.cy.easyhttp.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 对内置模拟服务的短时冒烟压测
+ */
+class LoadTestTest {
+
+    @Test
+    void closedModelAgainstMockServer() throws IOException {
+        AtomicInteger configured = new AtomicInteger();
+        LoadReport report = LoadTest.newBuilder(LoadTest.EchoApi.class, LoadTest.EchoApi::echo)
+                .server(MockServer.newBuilder().latency(1, 0).responseSize(128))
+                .configuration(builder -> {
+                    configured.incrementAndGet();
+                    // 设置了模拟服务时 baseUrl 会被替换
+                    builder.baseUrl("http://127.0.0.1:1");
+                })
+                .closedModel(4)
+                .warmup(0)
+                .duration(1)
+                .build()
+                .run();
+        assertEquals(1, configured.get());
+        assertTrue(report.getCompleted() > 0, report.toString());
+        assertEquals(0, report.getErrorCount(), report.toString());
+        assertTrue(report.getConnections() >= 1 && report.getPeakConnections() <= 4, report.toString());
+        assertTrue(report.getResponseTime().getMax() > 0, report.toString());
+        assertTrue(report.toString().startsWith("closed model 4 callers"), report.toString());
+    }
+
+    @Test
+    void openModelCountsErrors() throws IOException {
+        LoadReport report = LoadTest.newBuilder(LoadTest.EchoApi.class, LoadTest.EchoApi::echo)
+                .server(MockServer.newBuilder().latency(0, 0).errorRate(1, 500))
+                .openModel(100)
+                .workers(4)
+                .warmup(0)
+                .duration(1)
+                .build()
+                .run();
+        assertEquals(0, report.getCompleted());
+        assertTrue(report.getErrorCount() > 50, report.toString());
+        assertEquals(1, report.getErrors().size(), report.toString());
+        assertTrue(report.toString().startsWith("open model 100 req/s"), report.toString());
+    }
+}
@@ -0,0 +1,80 @@
+package com.cy.easyhttp.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MockServerTest {
+
+    private static HttpURLConnection open(MockServer server, String method) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(server.url() + "/echo").openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(5000);
+        connection.setReadTimeout(5000);
+        return connection;
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int n;
+            while ((n = input.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void respondsWithConfiguredBody() throws IOException {
+        try (MockServer server = MockServer.newBuilder().body("{\"ok\":true}").start()) {
+            HttpURLConnection get = open(server, "GET");
+            assertEquals(200, get.getResponseCode());
+            assertEquals("{\"ok\":true}", read(get.getInputStream()));
+
+            // 分块请求体被完整读掉，连接可以继续复用
+            HttpURLConnection post = open(server, "POST");
+            post.setDoOutput(true);
+            post.setChunkedStreamingMode(4);
+            try (OutputStream out = post.getOutputStream()) {
+                out.write("{\"name\":\"chunked\"}".getBytes(StandardCharsets.UTF_8));
+            }
+            assertEquals(200, post.getResponseCode());
+            assertEquals("{\"ok\":true}", read(post.getInputStream()));
+
+            assertEquals(2, server.getRequests());
+            assertEquals(0, server.getErrors());
+            assertTrue(server.getAcceptedConnections() >= 1);
+        }
+    }
+
+    @Test
+    void payloadHasRequestedSize() throws IOException {
+        try (MockServer server = MockServer.newBuilder().responseSize(512).start()) {
+            HttpURLConnection get = open(server, "GET");
+            String body = read(get.getInputStream());
+            assertEquals(512, body.length());
+            assertTrue(body.startsWith("{\"data\":\"xxx"), body);
+        }
+    }
+
+    @Test
+    void errorRateReturnsErrorStatus() throws IOException {
+        try (MockServer server = MockServer.newBuilder().errorRate(1, 503).start()) {
+            HttpURLConnection get = open(server, "GET");
+            assertEquals(503, get.getResponseCode());
+            assertEquals("{\"error\":\"mock\"}", read(get.getErrorStream()));
+            assertEquals(1, server.getErrors());
+        }
+    }
+}
@@ -1,9 +1,36 @@
 package com.cy.easyhttp;
 
+import com.cy.easyhttp.accesslog.AccessLog;
+import com.cy.easyhttp.annotation.method.RateLimit;
+import com.cy.easyhttp.dns.CachingDns;
+import com.cy.easyhttp.interceptor.HttpInterceptor;
+import com.cy.easyhttp.journal.Journal;
+import com.cy.easyhttp.ratelimit.RateLimiter;
+import com.cy.easyhttp.schedule.PriorityScheduler;
+import com.cy.easyhttp.trace.HttpTracer;
+import com.cy.easyhttp.transport.ConcurrencyLimitTransport;
+import com.cy.easyhttp.transport.HttpTransport;
+import com.cy.easyhttp.transport.OkHttpTransport;
+import com.cy.easyhttp.util.EasySerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.ConnectionPool;
+import okhttp3.Dns;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 配置类
@@ -24,6 +51,54 @@ public class HttpClientConfiguration {
      * okHttpClient
      */
     private final OkHttpClient okHttpClient;
+    /**
+     * 传输层实现，默认使用okHttpClient发送
+     */
+    private final HttpTransport transport;
+    /**
+     * 拦截器，按注册顺序执行
+     */
+    private final List<HttpInterceptor> interceptors;
+    /**
+     * 异步方法(返回 CompletableFuture)的执行线程池
+     */
+    private final Executor asyncExecutor;
+    /**
+     * 链路追踪，为空时不追踪
+     */
+    private final HttpTracer tracer;
+    /**
+     * 向下游传播剩余超时(毫秒)的请求头名称，为空时不传播
+     */
+    private final String deadlineHeader;
+    /**
+     * 按host限流，使用同一配置创建的所有客户端共享
+     */
+    private final Map<String, RateLimiter> hostRateLimiters;
+    /**
+     * 接口上 @RateLimit 对应的限流器，同一接口用同一配置创建的多个代理共享
+     */
+    private final ConcurrentMap<Class<?>, RateLimiter> interfaceRateLimiters = new ConcurrentHashMap<>();
+    /**
+     * DNS解析，为空时使用okhttp默认的 Dns.SYSTEM
+     */
+    private final Dns dns;
+    /**
+     * JSON序列化，默认使用 EasySerializer 的默认实例
+     */
+    private final EasySerializer serializer;
+    /**
+     * @FireAndForget 方法使用的持久化日志，可为null
+     */
+    private final Journal journal;
+    /**
+     * 按优先级限制并发，为空时不排队
+     */
+    private final PriorityScheduler scheduler;
+    /**
+     * 访问日志，可为null
+     */
+    private final AccessLog accessLog;
 
     //增加连接超时限制以及重试次数
     private final int connectTimeout; // 连接超时，单位秒
@@ -31,6 +106,13 @@ public class HttpClientConfiguration {
     private final int writeTimeout;   // 写入超时，单位秒
     private final int maxRetry;       // 最大重试次数
 
+    //HTTP/2 及连接相关配置
+    private final List<Protocol> protocols;   // 协议列表，为空时使用okhttp默认(h2 + http/1.1)
+    private final int pingInterval;           // HTTP/2 ping 间隔，单位秒，0 表示不发送
+    private final int maxRequests;            // 最大并发请求数，0 表示不限制
+    private final int maxRequestsPerHost;     // 每个host最大并发请求数，0 表示不限制
+    private final int maxIdleConnections;     // 连接池最大空闲连接数
+    private final int keepAlive;              // 空闲连接保活时间，单位秒
 
     // 私有构造函数，只能通过Builder创建实例
     private HttpClientConfiguration(Builder builder) {
@@ -40,17 +122,51 @@ public class HttpClientConfiguration {
         this.readTimeout = builder.readTimeout;
         this.writeTimeout = builder.writeTimeout;
         this.maxRetry = builder.maxRetry;
+        this.protocols = builder.protocols;
+        this.pingInterval = builder.pingInterval;
+        this.maxRequests = builder.maxRequests;
+        this.maxRequestsPerHost = builder.maxRequestsPerHost;
+        this.maxIdleConnections = builder.maxIdleConnections;
+        this.keepAlive = builder.keepAlive;
+        this.dns = builder.dns;
+        this.serializer = builder.serializer != null ? builder.serializer : EasySerializer.getDefault();
+        this.journal = builder.journal;
+        this.scheduler = builder.scheduler;
+        this.accessLog = builder.accessLog;
 
         // 如果用户没有传 OkHttpClient，则用 Builder 配置创建
         if (builder.okHttpClient != null) {
             this.okHttpClient = builder.okHttpClient;
         } else {
-            this.okHttpClient = new OkHttpClient.Builder()
-                    .connectTimeout(connectTimeout, java.util.concurrent.TimeUnit.SECONDS)
-                    .readTimeout(readTimeout, java.util.concurrent.TimeUnit.SECONDS)
-                    .writeTimeout(writeTimeout, java.util.concurrent.TimeUnit.SECONDS)
-                    .build();
+            OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder()
+                    .connectTimeout(connectTimeout, TimeUnit.SECONDS)
+                    .readTimeout(readTimeout, TimeUnit.SECONDS)
+                    .writeTimeout(writeTimeout, TimeUnit.SECONDS)
+                    .pingInterval(pingInterval, TimeUnit.SECONDS)
+                    .connectionPool(new ConnectionPool(maxIdleConnections, keepAlive, TimeUnit.SECONDS));
+            if (protocols != null && !protocols.isEmpty()) {
+                clientBuilder.protocols(protocols);
+            }
+            if (dns != null) {
+                clientBuilder.dns(dns);
+            }
+            this.okHttpClient = clientBuilder.build();
         }
+        HttpTransport transport = builder.transport != null ? builder.transport : new OkHttpTransport(okHttpClient);
+        if (maxRequests > 0 || maxRequestsPerHost > 0) {
+            transport = new ConcurrencyLimitTransport(transport, maxRequests, maxRequestsPerHost);
+        }
+        this.transport = transport;
+        this.interceptors = Collections.unmodifiableList(new ArrayList<>(builder.interceptors));
+        this.asyncExecutor = builder.asyncExecutor != null ? builder.asyncExecutor : DefaultAsyncExecutor.INSTANCE;
+        this.tracer = builder.tracer;
+        this.deadlineHeader = builder.deadlineHeader;
+        Map<String, RateLimiter> limiters = new LinkedHashMap<>();
+        for (Map.Entry<String, double[]> entry : builder.hostRateLimits.entrySet()) {
+            double[] limit = entry.getValue();
+            limiters.put(entry.getKey(), new RateLimiter("host:" + entry.getKey(), limit[0], (int) limit[1]));
+        }
+        this.hostRateLimiters = Collections.unmodifiableMap(limiters);
     }
 
     // 静态方法：创建Builder实例（更符合常见用法）
@@ -71,6 +187,65 @@ public class HttpClientConfiguration {
         return okHttpClient;
     }
 
+    public HttpTransport getTransport() {
+        return transport;
+    }
+
+    public List<HttpInterceptor> getInterceptors() {
+        return interceptors;
+    }
+
+    public Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    public HttpTracer getTracer() {
+        return tracer;
+    }
+
+    public String getDeadlineHeader() {
+        return deadlineHeader;
+    }
+
+    public Map<String, RateLimiter> getHostRateLimiters() {
+        return hostRateLimiters;
+    }
+
+    /**
+     * 接口级限流器，首次使用时按接口上的 {@link RateLimit} 创建
+     *
+     * @param clazz 接口
+     * @return 限流器，接口没有标注 {@link RateLimit} 时为null
+     */
+    public RateLimiter getInterfaceRateLimiter(Class<?> clazz) {
+        RateLimit rateLimit = clazz.getAnnotation(RateLimit.class);
+        if (rateLimit == null) {
+            return null;
+        }
+        return interfaceRateLimiters.computeIfAbsent(clazz,
+                c -> new RateLimiter(c.getSimpleName(), rateLimit.value(), rateLimit.burst()));
+    }
+
+    public Dns getDns() {
+        return dns;
+    }
+
+    public EasySerializer getSerializer() {
+        return serializer;
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    public PriorityScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public AccessLog getAccessLog() {
+        return accessLog;
+    }
+
     public int getConnectTimeout() { return connectTimeout; }
 
     public int getReadTimeout() { return readTimeout; }
@@ -79,15 +254,44 @@ public class HttpClientConfiguration {
 
     public int getMaxRetry() { return maxRetry; }
 
+    public List<Protocol> getProtocols() { return protocols; }
+
+    public int getPingInterval() { return pingInterval; }
+
+    public int getMaxRequests() { return maxRequests; }
+
+    public int getMaxRequestsPerHost() { return maxRequestsPerHost; }
+
+    public int getMaxIdleConnections() { return maxIdleConnections; }
+
+    public int getKeepAlive() { return keepAlive; }
+
     // Builder类
     public static class Builder {
         private String baseUrl;
         private Map<String, String> headers;
         private OkHttpClient okHttpClient;
+        private HttpTransport transport;
+        private final List<HttpInterceptor> interceptors = new ArrayList<>();
+        private Executor asyncExecutor;
+        private HttpTracer tracer;
+        private String deadlineHeader;
+        private final Map<String, double[]> hostRateLimits = new LinkedHashMap<>();
+        private Dns dns;
+        private EasySerializer serializer;
+        private Journal journal;
+        private PriorityScheduler scheduler;
+        private AccessLog accessLog;
         private int connectTimeout = 10; // 默认 10 秒
         private int readTimeout = 30;    // 默认 30 秒
         private int writeTimeout = 30;   // 默认 30 秒
         private int maxRetry = 3;        // 默认 3 次重试
+        private List<Protocol> protocols;
+        private int pingInterval = 0;        // 默认不发送 ping
+        private int maxRequests;
+        private int maxRequestsPerHost;
+        private int maxIdleConnections = 5;  // 与okhttp默认一致
+        private int keepAlive = 300;         // 默认 5 分钟
 
         // Builder构造函数设为私有，强制通过外层的newBuilder()创建
         private Builder() {
@@ -118,6 +322,59 @@ public class HttpClientConfiguration {
             return this;
         }
 
+        /**
+         * 设置传输层实现，如 HttpTransports.jdk()；设置后okHttpClient相关配置不再生效，
+         * maxRequests/maxRequestsPerHost 仍然生效
+         */
+        public Builder transport(HttpTransport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        /**
+         * 添加拦截器，按添加顺序执行
+         */
+        public Builder addInterceptor(HttpInterceptor interceptor) {
+            this.interceptors.add(interceptor);
+            return this;
+        }
+
+        /**
+         * 设置异步方法的执行线程池，默认使用共享的守护线程池
+         */
+        public Builder asyncExecutor(Executor asyncExecutor) {
+            this.asyncExecutor = asyncExecutor;
+            return this;
+        }
+
+        /**
+         * 设置链路追踪，如 new W3cHttpTracer(span -> log.info(span.toString()))
+         */
+        public Builder tracer(HttpTracer tracer) {
+            this.tracer = tracer;
+            return this;
+        }
+
+        /**
+         * 设置后，存在截止时间的请求会携带该请求头，值为剩余毫秒数,如 X-Request-Timeout
+         */
+        public Builder deadlineHeader(String deadlineHeader) {
+            this.deadlineHeader = deadlineHeader;
+            return this;
+        }
+
+        /**
+         * 按host限流
+         *
+         * @param host             主机名,如 api.github.com
+         * @param permitsPerSecond 每秒允许的请求数
+         * @param burst            允许的突发请求数
+         */
+        public Builder rateLimit(String host, double permitsPerSecond, int burst) {
+            this.hostRateLimits.put(host, new double[]{permitsPerSecond, burst});
+            return this;
+        }
+
         public Builder connectTimeout(int seconds) { this.connectTimeout = seconds; return this; }
 
         public Builder readTimeout(int seconds) { this.readTimeout = seconds; return this; }
@@ -126,10 +383,82 @@ public class HttpClientConfiguration {
 
         public Builder maxRetry(int maxRetry) { this.maxRetry = maxRetry; return this; }
 
+        /**
+         * 设置协议列表,如 HTTP_2 + HTTP_1_1
+         * 使用 H2_PRIOR_KNOWLEDGE(h2c) 时只能单独设置该协议
+         */
+        public Builder protocols(Protocol... protocols) { this.protocols = Arrays.asList(protocols); return this; }
+
+        /**
+         * 以明文 HTTP/2 直连(h2c prior knowledge)，适用于内部服务
+         */
+        public Builder h2PriorKnowledge() { return protocols(Protocol.H2_PRIOR_KNOWLEDGE); }
+
+        public Builder pingInterval(int seconds) { this.pingInterval = seconds; return this; }
+
+        /**
+         * 最大并发请求数，从发起请求到响应关闭计为一个；超出时调用线程排队等待，默认不限制
+         */
+        public Builder maxRequests(int maxRequests) { this.maxRequests = maxRequests; return this; }
+
+        /**
+         * 每个host最大并发请求数，超出时调用线程排队等待，默认不限制
+         */
+        public Builder maxRequestsPerHost(int maxRequestsPerHost) { this.maxRequestsPerHost = maxRequestsPerHost; return this; }
+
+        public Builder maxIdleConnections(int maxIdleConnections) { this.maxIdleConnections = maxIdleConnections; return this; }
+
+        public Builder keepAlive(int seconds) { this.keepAlive = seconds; return this; }
+
+        /**
+         * 设置DNS解析，如 CachingDns.newBuilder().build()
+         */
+        public Builder dns(Dns dns) { this.dns = dns; return this; }
+
+        /**
+         * 使用默认参数的缓存DNS，后台刷新并在解析失败时使用过期记录
+         */
+        public Builder cachingDns() { return dns(CachingDns.newBuilder().build()); }
+
+        /**
+         * 设置JSON序列化实现
+         */
+        public Builder serializer(EasySerializer serializer) { this.serializer = serializer; return this; }
+
+        /**
+         * 使用自定义的 ObjectMapper，可以先通过 EasySerializer.registerAccelerator 注册 Blackbird/Afterburner
+         */
+        public Builder objectMapper(ObjectMapper objectMapper) { return serializer(new EasySerializer(objectMapper)); }
+
+        /**
+         * 设置 @FireAndForget 方法使用的持久化日志，如 Journal.newBuilder(Paths.get("journal")).build()
+         */
+        public Builder journal(Journal journal) { this.journal = journal; return this; }
+
+        /**
+         * 设置优先级调度，并发达到上限后按 @Priority 排队；多个配置可共享同一个调度器
+         */
+        public Builder scheduler(PriorityScheduler scheduler) { this.scheduler = scheduler; return this; }
+
+        /**
+         * 设置访问日志，如 AccessLog.newBuilder(new RollingFileSink("logs/access.log")).build()
+         */
+        public Builder accessLog(AccessLog accessLog) { this.accessLog = accessLog; return this; }
 
         // 构建Configuration实例
         public HttpClientConfiguration build() {
             return new HttpClientConfiguration(this);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 默认异步线程池，首次使用时才创建
+     */
+    private static class DefaultAsyncExecutor {
+        private static final ExecutorService INSTANCE = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "easy-http-async");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
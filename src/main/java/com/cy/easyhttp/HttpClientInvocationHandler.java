@@ -1,24 +1,36 @@
 package com.cy.easyhttp;
 
-import com.cy.easyhttp.annotation.method.Delete;
-import com.cy.easyhttp.annotation.method.Get;
-import com.cy.easyhttp.annotation.method.Post;
-import com.cy.easyhttp.annotation.method.Put;
-import com.cy.easyhttp.annotation.param.HeaderParam;
-import com.cy.easyhttp.annotation.param.JsonBody;
-import com.cy.easyhttp.annotation.param.PathParam;
-import com.cy.easyhttp.annotation.param.QueryParam;
+import com.cy.easyhttp.accesslog.AccessLog;
+import com.cy.easyhttp.annotation.method.FireAndForget;
+import com.cy.easyhttp.deadline.Deadline;
+import com.cy.easyhttp.interceptor.HttpInterceptor;
+import com.cy.easyhttp.interceptor.RealInterceptorChain;
+import com.cy.easyhttp.journal.Journal;
+import com.cy.easyhttp.ratelimit.RateLimitExceededException;
+import com.cy.easyhttp.ratelimit.RateLimitPermit;
+import com.cy.easyhttp.ratelimit.RateLimiter;
+import com.cy.easyhttp.schedule.RequestPriority;
+import com.cy.easyhttp.trace.HttpSpan;
+import com.cy.easyhttp.trace.HttpTracer;
+import com.cy.easyhttp.trace.TraceContext;
 import com.cy.easyhttp.util.HttpUtil;
+import com.cy.easyhttp.util.JsonExtractor;
+import com.cy.easyhttp.util.RangedDownload;
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
-import org.jetbrains.annotations.NotNull;
+import okhttp3.Request;
 
-import java.lang.annotation.Annotation;
+import java.io.IOException;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Http客户端调用处理器，实现动态代理的逻辑
@@ -30,16 +42,38 @@ public class HttpClientInvocationHandler implements InvocationHandler {
 
     private final String baseUrl;
     private final Map<String, String> defaultHeaders;
+    /**
+     * 预解析的基础URL
+     */
+    private final HttpUrl httpUrl;
     private final HttpUtil httpUtil;
-    private static final Pattern PATH_VARIABLE_PATTERN = Pattern.compile("\\{([^/]+?)}");
+    private final List<HttpInterceptor> interceptors;
+    /**
+     * 接口级和host级限流器
+     */
+    private final List<RateLimiter> sharedLimiters = new ArrayList<>();
+    private final Executor asyncExecutor;
+    private final HttpTracer tracer;
+    /**
+     * 访问日志，可为null
+     */
+    private final AccessLog accessLog;
+    /**
+     * @FireAndForget 方法使用的持久化日志，可为null
+     */
+    private final Journal journal;
+    /**
+     * 是否配置了优先级调度
+     */
+    private final boolean prioritized;
+    /**
+     * 方法解析缓存
+     */
+    private final Map<Method, MethodMetadata> metadataCache = new ConcurrentHashMap<>();
 
 
     public HttpClientInvocationHandler(Class<?> clazz) {
-        HttpClient annotation = clazz.getAnnotation(HttpClient.class);
-        // 基础url
-        this.baseUrl = annotation.baseUrl().endsWith("/") ? annotation.baseUrl().substring(0, annotation.baseUrl().length() - 1) : annotation.baseUrl();
-        this.defaultHeaders = parseHeaders(annotation.headers());
-        this.httpUtil = new HttpUtil(new OkHttpClient());
+        this(clazz, HttpClientConfiguration.newBuilder().okHttpClient(new OkHttpClient()).build());
     }
 
     public HttpClientInvocationHandler(Class<?> clazz, HttpClientConfiguration configuration) {
@@ -51,9 +85,39 @@ public class HttpClientInvocationHandler implements InvocationHandler {
             this.baseUrl = configuration.getBaseUrl().endsWith("/") ?
                     configuration.getBaseUrl().substring(0, configuration.getBaseUrl().length() - 1) : configuration.getBaseUrl();
         }
-        this.defaultHeaders = parseHeaders(annotation.headers());
+        this.defaultHeaders = MethodMetadata.parseHeaders(annotation.headers());
         this.defaultHeaders.putAll(configuration.getHeaders());
-        this.httpUtil = configuration.getOkHttpClient() == null ? new HttpUtil(new OkHttpClient()) : new HttpUtil(configuration.getOkHttpClient());
+        this.httpUrl = HttpUrl.parse(baseUrl);
+        this.httpUtil = new HttpUtil(configuration.getTransport(), configuration.getDeadlineHeader(),
+                configuration.getAsyncExecutor(), configuration.getMaxRetry(), configuration.getSerializer(),
+                configuration.getScheduler());
+        this.prioritized = configuration.getScheduler() != null;
+        this.interceptors = configuration.getInterceptors();
+        // 接口级和host级限流器由配置持有，多个代理共享
+        RateLimiter interfaceLimiter = configuration.getInterfaceRateLimiter(clazz);
+        if (interfaceLimiter != null) {
+            this.sharedLimiters.add(interfaceLimiter);
+        }
+        if (httpUrl != null && configuration.getHostRateLimiters().containsKey(httpUrl.host())) {
+            this.sharedLimiters.add(configuration.getHostRateLimiters().get(httpUrl.host()));
+        }
+        this.asyncExecutor = configuration.getAsyncExecutor();
+        this.tracer = configuration.getTracer();
+        this.accessLog = configuration.getAccessLog();
+        this.journal = configuration.getJournal();
+        if (journal != null) {
+            // 在发送线程启动前注册路由，重启后遗留的记录也按方法的限流器发送
+            for (Method method : clazz.getMethods()) {
+                if (method.isAnnotationPresent(FireAndForget.class)) {
+                    MethodMetadata metadata = MethodMetadata.parse(method, httpUrl, defaultHeaders, interceptors, sharedLimiters);
+                    if (metadata != null) {
+                        metadataCache.put(method, metadata);
+                        journal.registerRoute(route(method), metadata.getRateLimiters(), r -> deliver(metadata, r));
+                    }
+                }
+            }
+            journal.start(configuration.getTransport(), configuration.getHostRateLimiters());
+        }
     }
 
 
@@ -62,197 +126,232 @@ public class HttpClientInvocationHandler implements InvocationHandler {
         if (method.getDeclaringClass() == Object.class) {
             return method.invoke(this, args);
         }
-        //解析方法上的HTTP注解
-        //构建请求路径
-        String path = buildUrl(method);
-        //解析url中的占位符,如/path/{id}
-        path = parsePath(method, path, args);
-        //构建请求头
-        Map<String, String> headers = buildHeaders(method, args);
-        //调用请求
-        if (method.isAnnotationPresent(Get.class)) {
-            Map<String, String> params = buildGetParams(method, args);
-            return httpUtil.doGet(path, headers, params, method.getReturnType());
-        }
-        if (method.isAnnotationPresent(Post.class)) {
-            Object jsonBody = buildJsonBody(method, args);
-            return httpUtil.doPost(path, headers, jsonBody, method.getReturnType());
-        }
-        if (method.isAnnotationPresent(Put.class)) {
-            Object jsonBody = buildJsonBody(method, args);
-            return httpUtil.doPut(path, headers, jsonBody, method.getReturnType());
+        //解析方法上的HTTP注解,每个方法只解析一次
+        MethodMetadata metadata = metadataCache.get(method);
+        if (metadata == null) {
+            metadata = metadataCache.computeIfAbsent(method,
+                    m -> MethodMetadata.parse(m, httpUrl, defaultHeaders, interceptors, sharedLimiters));
         }
-        if (method.isAnnotationPresent(Delete.class)) {
-            Map<String, String> params = buildGetParams(method, args);
-            return httpUtil.doDelete(path, headers, params, method.getReturnType());
+        if (metadata == null) {
+            return null;
         }
-        return null;
-    }
-
-    /**
-     * 构建完整URL
-     */
-    private String buildUrl(Method method) {
-        String path = "";
-
-        if (method.isAnnotationPresent(Get.class)) {
-            path = method.getAnnotation(Get.class).value();
+        // 调用方截止时间与方法级超时取较早者
+        Deadline deadline = Deadline.current();
+        if (metadata.getTimeoutNanos() > 0) {
+            deadline = Deadline.after(metadata.getTimeoutNanos(), TimeUnit.NANOSECONDS).min(deadline);
         }
-        if (method.isAnnotationPresent(Post.class)) {
-            path = method.getAnnotation(Post.class).value();
+        HttpSpan span = null;
+        long start = 0;
+        if (tracer != null || accessLog != null) {
+            start = System.nanoTime();
+            if (tracer != null) {
+                span = tracer.startSpan(metadata, TraceContext.current());
+            }
+            if (accessLog != null) {
+                span = accessLog.wrap(metadata, start, span);
+            }
         }
-        if (method.isAnnotationPresent(Put.class)) {
-            path = method.getAnnotation(Put.class).value();
+        //展开url模板,如/path/{id},并构建请求
+        Request request;
+        try {
+            request = bind(metadata, args, span, deadline);
+        } catch (RateLimitExceededException e) {
+            end(span, e);
+            // 异步方法的限流失败通过future返回，与发送失败一致
+            if (metadata.isAsync()) {
+                CompletableFuture<Object> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                return failed;
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            end(span, e);
+            throw e;
         }
-        if (method.isAnnotationPresent(Delete.class)) {
-            path = method.getAnnotation(Delete.class).value();
+        if (span != null) {
+            span.onPhase(HttpSpan.Phase.BINDING, start, System.nanoTime());
         }
-        // 拼接baseUrl和path，处理斜杠问题
-        return baseUrl + (path.startsWith("/") ? "" : "/") + path;
-    }
-
-    /**
-     * 解析url路径的占位符
-     * /path/{id}
-     *
-     * @param method 方法
-     * @param path   请求路径
-     * @return 构建后的路径
-     */
-    private String parsePath(Method method, String path, Object[] args) {
-        //获取url路径参数
-        Map<String, String> pathVars = getStringStringMap(method, args);
-
-        // 替换 {xxx} 占位符
-        Matcher matcher = PATH_VARIABLE_PATTERN.matcher(path);
-        StringBuffer sb = new StringBuffer();
-        while (matcher.find()) {
-            // 提取 { } 中的名字
-            String varName = matcher.group(1);
-            String varValue = pathVars.get(varName);
-            if (varValue == null) {
-                throw new IllegalArgumentException("No value provided for path variable: {" + varName + "}");
+        //调用请求
+        if (journal != null && metadata.isFireAndForget()) {
+            // 拦截器在调用线程执行后写入日志并立即返回，由后台线程按限流发送
+            String route = route(metadata.getMethod());
+            try {
+                HttpInterceptor[] chain = metadata.getInterceptors();
+                if (chain.length == 0) {
+                    journal.append(request, route);
+                } else {
+                    new RealInterceptorChain(chain, 0, metadata, args, request, r -> {
+                        journal.append(r, route);
+                        return null;
+                    }).proceed(request);
+                }
+            } catch (RuntimeException e) {
+                end(span, e);
+                throw e;
             }
-            matcher.appendReplacement(sb, Matcher.quoteReplacement(varValue));
+            end(span, null);
+            return null;
         }
-        matcher.appendTail(sb);
-        return sb.toString();
-    }
-
-    /**
-     * 获取路径参数
-     *
-     * @param method 方法
-     * @param args   参数
-     * @return 路径参数
-     */
-    @NotNull
-    private static Map<String, String> getStringStringMap(Method method, Object[] args) {
-        Annotation[][] paramAnnotations = method.getParameterAnnotations();
-        Map<String, String> pathVars = new HashMap<>();
-
-        // 收集所有 @PathParam 参数
-        for (int i = 0; i < paramAnnotations.length; i++) {
-            for (Annotation annotation : paramAnnotations[i]) {
-                if (annotation instanceof PathParam) {
-                    String paramName = ((PathParam) annotation).value();
-                    Object paramValue = args[i];
-                    if (paramValue == null) {
-                        throw new IllegalArgumentException("Path variable '" + paramName + "' cannot be null");
+        if (metadata.isAsync() || metadata.isFireAndForget()) {
+            // 把调用线程的追踪上下文和截止时间带到异步线程
+            MethodMetadata plan = metadata;
+            HttpSpan asyncSpan = span;
+            TraceContext context = span != null && span.context() != null ? span.context() : TraceContext.current();
+            Deadline asyncDeadline = deadline;
+            // 需要等待限流许可时延迟提交，不占用线程等待
+            RateLimitPermit permit = request.tag(RateLimitPermit.class);
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            // 线程池拒绝时结束span并让future失败；延迟提交时拒绝发生在调度线程，同样经过这里
+            Executor executor = task -> {
+                try {
+                    asyncExecutor.execute(task);
+                } catch (RuntimeException e) {
+                    if (future.completeExceptionally(e)) {
+                        end(asyncSpan, e);
+                    }
+                    throw e;
+                }
+            };
+            try {
+                (permit == null ? executor : permit.delayed(executor)).execute(() -> {
+                    try {
+                        future.complete(execute(plan, args, request, asyncSpan, context, asyncDeadline));
+                    } catch (Throwable e) {
+                        future.completeExceptionally(e);
                     }
-                    pathVars.put(paramName, paramValue.toString());
+                });
+            } catch (RuntimeException e) {
+                if (future.completeExceptionally(e)) {
+                    end(asyncSpan, e);
+                }
+                if (!metadata.isAsync()) {
+                    throw e;
                 }
             }
+            // 没有日志时 @FireAndForget 方法只在异步线程中发送
+            return metadata.isAsync() ? future : null;
         }
-        return pathVars;
+        RateLimitPermit permit = request.tag(RateLimitPermit.class);
+        if (permit != null) {
+            permit.await();
+        }
+        return execute(metadata, args, request, span, span == null ? null : span.context(),
+                deadline == Deadline.current() ? null : deadline);
     }
 
     /**
-     * 设置请求头
+     * 绑定方法参数，构建请求
      */
-    private Map<String, String> buildHeaders(Method method, Object[] args) {
-        // 添加默认请求头
-        if (method.isAnnotationPresent(Get.class)) {
-            defaultHeaders.putAll(parseHeaders(method.getAnnotation(Get.class).headers()));
+    private Request bind(MethodMetadata metadata, Object[] args, HttpSpan span, Deadline deadline) {
+        HttpUrl url = metadata.getUrlTemplate().expand(args);
+        Headers headers = metadata.buildHeaders(args);
+        if (span != null && span.context() != null) {
+            headers = span.context().inject(headers);
         }
-        if (method.isAnnotationPresent(Post.class)) {
-            defaultHeaders.putAll(parseHeaders(method.getAnnotation(Post.class).headers()));
+        Request request = httpUtil.buildRequest(metadata.getHttpMethod(), url, headers, metadata.getBody(args),
+                metadata.getDownloadTarget(args), metadata.getBodyFormat());
+        if (metadata.getRangedDownload() != null) {
+            request = request.newBuilder().tag(RangedDownload.class, metadata.getRangedDownload()).build();
         }
-        if (method.isAnnotationPresent(Put.class)) {
-            defaultHeaders.putAll(parseHeaders(method.getAnnotation(Put.class).headers()));
+        if (metadata.getExtractor() != null) {
+            request = request.newBuilder().tag(JsonExtractor.class, metadata.getExtractor()).build();
         }
-        if (method.isAnnotationPresent(Delete.class)) {
-            defaultHeaders.putAll(parseHeaders(method.getAnnotation(Delete.class).headers()));
+        // 调用方覆盖的优先级优先于注解
+        if (prioritized) {
+            RequestPriority priority = RequestPriority.current();
+            request = request.newBuilder()
+                    .tag(RequestPriority.class, priority != null ? priority : metadata.getPriority()).build();
         }
-        //处理参数请求头
-        Annotation[][] annotations = method.getParameterAnnotations();
-        for (int i = 0; i < annotations.length; i++) {
-            for (Annotation annotation : annotations[i]) {
-                if (annotation instanceof HeaderParam) {
-                    defaultHeaders.put(((HeaderParam) annotation).value(), args[i].toString());
-                }
-            }
+        // 预约限流许可，等待在发送前进行；写入日志的请求由日志发送时限流
+        if (metadata.getRateLimiters().length > 0 && !(journal != null && metadata.isFireAndForget())) {
+            RateLimitPermit permit = RateLimitPermit.reserve(metadata.getRateLimiters(),
+                    metadata.getRateLimitMode(), metadata.getRateLimitTimeout(), deadline);
+            request = request.newBuilder().tag(RateLimitPermit.class, permit).build();
         }
-        return defaultHeaders;
+        return request;
     }
 
     /**
-     * 构建Get请求参数
-     * 常见: /path?param1=value1&param2=value2
-     *
-     * @param method 请求方法
-     * @param args   参数
-     * @return 返回请求中的查询参数
+     * 在日志发送线程中发送一次，与同步调用相同地经过调度、方法超时、追踪和访问日志
      */
-    private Map<String, String> buildGetParams(Method method, Object[] args) {
-        Map<String, String> params = new HashMap<>();
-        Annotation[][] annotations = method.getParameterAnnotations();
-        for (int i = 0; i < annotations.length; i++) {
-            for (Annotation annotation : annotations[i]) {
-                if (annotation instanceof QueryParam) {
-                    if (args[i] != null) {
-                        params.put(((QueryParam) annotation).value(), args[i].toString());
-                    }
-                    break;
-                }
+    private int deliver(MethodMetadata metadata, Request request) throws IOException {
+        HttpSpan span = null;
+        if (tracer != null || accessLog != null) {
+            long start = System.nanoTime();
+            if (tracer != null) {
+                span = tracer.startSpan(metadata, null);
+            }
+            if (accessLog != null) {
+                span = accessLog.wrap(metadata, start, span);
+            }
+        }
+        Deadline.Scope scope = metadata.getTimeoutNanos() > 0
+                ? Deadline.after(metadata.getTimeoutNanos(), TimeUnit.NANOSECONDS).attach() : null;
+        int code;
+        try {
+            code = httpUtil.deliver(request, span);
+        } catch (IOException | RuntimeException e) {
+            end(span, e);
+            throw e;
+        } finally {
+            if (scope != null) {
+                scope.close();
             }
         }
-        return params;
+        end(span, null);
+        return code;
     }
 
     /**
-     * 构建JSON请求体
-     *
-     * @param method 请求方法
-     * @param args   请求参数
-     * @return 请求体
+     * 结束span，追踪实现抛出的异常不影响业务调用
      */
-    private Object buildJsonBody(Method method, Object[] args) {
-        Annotation[][] annotations = method.getParameterAnnotations();
-        for (int i = 0; i < annotations.length; i++) {
-            for (Annotation ann : annotations[i]) {
-                if (ann instanceof JsonBody) {
-                    return args[i];
-                }
-            }
+    private static void end(HttpSpan span, Throwable error) {
+        if (span == null) {
+            return;
         }
-        return null;
+        try {
+            span.end(error);
+        } catch (RuntimeException ignored) {
+            // 忽略
+        }
+    }
+
+    /**
+     * 写入日志的请求的路由，用于发送时查找限流器
+     */
+    private static String route(Method method) {
+        return method.getDeclaringClass().getName() + "#" + method.getName();
     }
 
     /**
-     * 解析请求头数组为Map
+     * 执行请求，没有拦截器时直接发送
      *
-     * @param headers 请求头数组
-     * @since v1.0.0
+     * @param context  执行期间作为当前线程的追踪上下文，为空时不切换
+     * @param deadline 执行期间作为当前线程的截止时间，为空时不切换
      */
-    private Map<String, String> parseHeaders(String[] headers) {
-        Map<String, String> headerMap = new HashMap<>();
-        for (String header : headers) {
-            String[] parts = header.split(":", 2);
-            if (parts.length == 2) {
-                headerMap.put(parts[0].trim(), parts[1].trim());
+    private Object execute(MethodMetadata metadata, Object[] args, Request request, HttpSpan span,
+                           TraceContext context, Deadline deadline) {
+        TraceContext.Scope scope = context == null ? null : context.attach();
+        Deadline.Scope deadlineScope = deadline == null ? null : deadline.attach();
+        Object result;
+        try {
+            HttpInterceptor[] chain = metadata.getInterceptors();
+            result = chain.length == 0
+                    ? httpUtil.execute(request, metadata.getResponseType(), span)
+                    : new RealInterceptorChain(chain, 0, metadata, args, request, httpUtil, span).proceed(request);
+        } catch (RuntimeException e) {
+            end(span, e);
+            throw e;
+        } finally {
+            if (deadlineScope != null) {
+                deadlineScope.close();
+            }
+            if (scope != null) {
+                scope.close();
             }
         }
-        return headerMap;
+        // 在 try 之外结束，span 只以成功结束一次
+        end(span, null);
+        return result;
     }
 }
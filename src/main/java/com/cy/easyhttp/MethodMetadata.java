@@ -0,0 +1,395 @@
+package com.cy.easyhttp;
+
+import com.cy.easyhttp.annotation.method.Delete;
+import com.cy.easyhttp.annotation.method.Extract;
+import com.cy.easyhttp.annotation.method.FireAndForget;
+import com.cy.easyhttp.annotation.method.Get;
+import com.cy.easyhttp.annotation.method.Post;
+import com.cy.easyhttp.annotation.method.Priority;
+import com.cy.easyhttp.annotation.method.Put;
+import com.cy.easyhttp.annotation.method.RateLimit;
+import com.cy.easyhttp.annotation.method.Timeout;
+import com.cy.easyhttp.annotation.param.DownloadTo;
+import com.cy.easyhttp.annotation.param.HeaderParam;
+import com.cy.easyhttp.annotation.param.JsonBody;
+import com.cy.easyhttp.annotation.param.PathParam;
+import com.cy.easyhttp.annotation.param.QueryParam;
+import com.cy.easyhttp.interceptor.HttpInterceptor;
+import com.cy.easyhttp.ratelimit.RateLimiter;
+import com.cy.easyhttp.schedule.RequestPriority;
+import com.cy.easyhttp.util.JsonExtractor;
+import com.cy.easyhttp.util.RangedDownload;
+import com.cy.easyhttp.util.UrlTemplate;
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 接口方法解析结果(方法执行计划)，每个方法只解析一次后缓存
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public class MethodMetadata {
+    /**
+     * 接口方法
+     */
+    private final Method method;
+    /**
+     * 请求方法 GET/POST/PUT/DELETE
+     */
+    private final String httpMethod;
+    /**
+     * 预编译的URL模板
+     */
+    private final UrlTemplate urlTemplate;
+    /**
+     * 默认请求头 + 方法注解上的请求头
+     */
+    private final Headers headers;
+    /**
+     * @HeaderParam 请求头名称及参数下标
+     */
+    private final String[] headerNames;
+    private final int[] headerIndexes;
+    /**
+     * @JsonBody 参数下标，没有时为 -1
+     */
+    private final int bodyIndex;
+    /**
+     * 流式请求体的格式
+     */
+    private final JsonBody.Format bodyFormat;
+    /**
+     * @DownloadTo 参数下标，没有时为 -1
+     */
+    private final int downloadIndex;
+    /**
+     * 分块并发下载参数，单连接下载时为null
+     */
+    private final RangedDownload rangedDownload;
+    /**
+     * 响应反序列化类型，异步方法为 CompletableFuture 的泛型参数
+     */
+    private final Type responseType;
+    /**
+     * 是否为异步方法(返回 CompletableFuture)
+     */
+    private final boolean async;
+    /**
+     * 方法级超时纳秒数，0 表示不限制
+     */
+    private final long timeoutNanos;
+    /**
+     * 拦截器链
+     */
+    private final HttpInterceptor[] interceptors;
+    /**
+     * 限流器(接口级、方法级、host级)，没有限流时为空数组
+     */
+    private final RateLimiter[] rateLimiters;
+    /**
+     * 限流许可获取方式
+     */
+    private final RateLimit.Mode rateLimitMode;
+    private final long rateLimitTimeout;
+    /**
+     * 是否为 @FireAndForget 方法
+     */
+    private final boolean fireAndForget;
+    /**
+     * @Priority 声明的优先级
+     */
+    private final RequestPriority priority;
+    /**
+     * @Extract 编译的提取器，可为null
+     */
+    private final JsonExtractor extractor;
+
+    private MethodMetadata(Method method, String httpMethod, UrlTemplate urlTemplate, Headers headers,
+                           String[] headerNames, int[] headerIndexes, int bodyIndex, JsonBody.Format bodyFormat, int downloadIndex, RangedDownload rangedDownload, Type responseType,
+                           boolean async, long timeoutNanos, HttpInterceptor[] interceptors,
+                           RateLimiter[] rateLimiters, RateLimit.Mode rateLimitMode, long rateLimitTimeout,
+                           boolean fireAndForget, RequestPriority priority, JsonExtractor extractor) {
+        this.method = method;
+        this.httpMethod = httpMethod;
+        this.urlTemplate = urlTemplate;
+        this.headers = headers;
+        this.headerNames = headerNames;
+        this.headerIndexes = headerIndexes;
+        this.bodyIndex = bodyIndex;
+        this.bodyFormat = bodyFormat;
+        this.downloadIndex = downloadIndex;
+        this.rangedDownload = rangedDownload;
+        this.responseType = responseType;
+        this.async = async;
+        this.timeoutNanos = timeoutNanos;
+        this.interceptors = interceptors;
+        this.rateLimiters = rateLimiters;
+        this.rateLimitMode = rateLimitMode;
+        this.rateLimitTimeout = rateLimitTimeout;
+        this.fireAndForget = fireAndForget;
+        this.priority = priority;
+        this.extractor = extractor;
+    }
+
+    /**
+     * 解析接口方法
+     *
+     * @param method         接口方法
+     * @param baseUrl        预解析的基础URL
+     * @param defaultHeaders 客户端默认请求头
+     * @param interceptors   拦截器
+     * @param sharedLimiters 接口级和host级限流器
+     * @return 方法元数据，非HTTP方法返回null
+     */
+    static MethodMetadata parse(Method method, HttpUrl baseUrl, Map<String, String> defaultHeaders,
+                                List<HttpInterceptor> interceptors, List<RateLimiter> sharedLimiters) {
+        String httpMethod;
+        String path;
+        String[] methodHeaders;
+        if (method.isAnnotationPresent(Get.class)) {
+            httpMethod = "GET";
+            path = method.getAnnotation(Get.class).value();
+            methodHeaders = method.getAnnotation(Get.class).headers();
+        } else if (method.isAnnotationPresent(Post.class)) {
+            httpMethod = "POST";
+            path = method.getAnnotation(Post.class).value();
+            methodHeaders = method.getAnnotation(Post.class).headers();
+        } else if (method.isAnnotationPresent(Put.class)) {
+            httpMethod = "PUT";
+            path = method.getAnnotation(Put.class).value();
+            methodHeaders = method.getAnnotation(Put.class).headers();
+        } else if (method.isAnnotationPresent(Delete.class)) {
+            httpMethod = "DELETE";
+            path = method.getAnnotation(Delete.class).value();
+            methodHeaders = method.getAnnotation(Delete.class).headers();
+        } else {
+            return null;
+        }
+
+        // 合并默认请求头和方法请求头
+        Map<String, String> headerMap = new LinkedHashMap<>(defaultHeaders);
+        headerMap.putAll(parseHeaders(methodHeaders));
+
+        // 收集参数注解对应的参数下标
+        Map<String, Integer> pathVariables = new HashMap<>();
+        List<UrlTemplate.QueryBinding> queryBindings = new ArrayList<>();
+        List<String> headerNames = new ArrayList<>();
+        List<Integer> headerIndexes = new ArrayList<>();
+        int bodyIndex = -1;
+        JsonBody.Format bodyFormat = JsonBody.Format.ARRAY;
+        int downloadIndex = -1;
+        RangedDownload rangedDownload = null;
+        Annotation[][] paramAnnotations = method.getParameterAnnotations();
+        for (int i = 0; i < paramAnnotations.length; i++) {
+            for (Annotation annotation : paramAnnotations[i]) {
+                if (annotation instanceof PathParam) {
+                    pathVariables.put(((PathParam) annotation).value(), i);
+                }
+                if (annotation instanceof QueryParam) {
+                    QueryParam queryParam = (QueryParam) annotation;
+                    queryBindings.add(new UrlTemplate.QueryBinding(queryParam.value(), i, queryParam.required()));
+                }
+                if (annotation instanceof HeaderParam) {
+                    headerNames.add(((HeaderParam) annotation).value());
+                    headerIndexes.add(i);
+                }
+                if (annotation instanceof JsonBody && bodyIndex < 0) {
+                    bodyIndex = i;
+                    bodyFormat = ((JsonBody) annotation).format();
+                }
+                if (annotation instanceof DownloadTo) {
+                    if (method.getParameterTypes()[i] != Path.class) {
+                        throw new IllegalArgumentException("@DownloadTo parameter must be java.nio.file.Path: " + method);
+                    }
+                    downloadIndex = i;
+                    DownloadTo downloadTo = (DownloadTo) annotation;
+                    if (downloadTo.parallelism() > 1) {
+                        rangedDownload = new RangedDownload(downloadTo.parallelism(), downloadTo.chunkSize());
+                    }
+                }
+            }
+        }
+
+        // 异步方法取 CompletableFuture<T> 中的 T 作为反序列化类型
+        Type responseType = method.getGenericReturnType();
+        boolean async = method.getReturnType() == CompletableFuture.class;
+        if (async) {
+            responseType = responseType instanceof ParameterizedType
+                    ? ((ParameterizedType) responseType).getActualTypeArguments()[0] : Object.class;
+        }
+
+        boolean fireAndForget = method.isAnnotationPresent(FireAndForget.class);
+        if (fireAndForget && method.getReturnType() != void.class) {
+            throw new IllegalArgumentException("@FireAndForget method must return void: " + method);
+        }
+
+        Priority priority = method.getAnnotation(Priority.class);
+        if (priority == null) {
+            priority = method.getDeclaringClass().getAnnotation(Priority.class);
+        }
+
+        Extract extract = method.getAnnotation(Extract.class);
+        if (extract == null) {
+            extract = method.getDeclaringClass().getAnnotation(Extract.class);
+        }
+
+        Timeout timeout = method.getAnnotation(Timeout.class);
+        long timeoutNanos = timeout == null ? 0 : timeout.unit().toNanos(timeout.value());
+
+        // 方法级限流，获取方式以方法注解为准，其次是接口注解
+        List<RateLimiter> limiters = new ArrayList<>(sharedLimiters);
+        RateLimit rateLimit = method.getAnnotation(RateLimit.class);
+        if (rateLimit != null) {
+            limiters.add(new RateLimiter(method.getDeclaringClass().getSimpleName() + "." + method.getName(),
+                    rateLimit.value(), rateLimit.burst()));
+        } else {
+            rateLimit = method.getDeclaringClass().getAnnotation(RateLimit.class);
+        }
+
+        return new MethodMetadata(method, httpMethod,
+                UrlTemplate.compile(baseUrl, path, pathVariables, queryBindings),
+                Headers.of(headerMap),
+                headerNames.toArray(new String[0]),
+                headerIndexes.stream().mapToInt(Integer::intValue).toArray(),
+                bodyIndex, bodyFormat, downloadIndex, rangedDownload, responseType, async, timeoutNanos,
+                interceptors.toArray(new HttpInterceptor[0]),
+                limiters.toArray(new RateLimiter[0]),
+                rateLimit == null ? RateLimit.Mode.BLOCK : rateLimit.mode(),
+                rateLimit == null ? 0 : rateLimit.timeout(),
+                fireAndForget, priority == null ? RequestPriority.NORMAL : priority.value(),
+                extract == null ? null : JsonExtractor.compile(extract));
+    }
+
+    /**
+     * 构建本次调用的请求头，没有 @HeaderParam 时直接复用预构建的请求头
+     *
+     * @param args 方法参数
+     * @return 请求头
+     */
+    public Headers buildHeaders(Object[] args) {
+        if (headerNames.length == 0) {
+            return headers;
+        }
+        Headers.Builder builder = headers.newBuilder();
+        for (int i = 0; i < headerNames.length; i++) {
+            Object value = args[headerIndexes[i]];
+            if (value != null) {
+                builder.set(headerNames[i], value.toString());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 获取请求体参数
+     *
+     * @param args 方法参数
+     * @return 请求体，没有 @JsonBody 参数时返回null
+     */
+    public Object getBody(Object[] args) {
+        return bodyIndex < 0 ? null : args[bodyIndex];
+    }
+
+    public JsonBody.Format getBodyFormat() {
+        return bodyFormat;
+    }
+
+    /**
+     * 获取下载目标文件
+     *
+     * @param args 方法参数
+     * @return 目标文件，没有 @DownloadTo 参数时返回null
+     */
+    public Path getDownloadTarget(Object[] args) {
+        return downloadIndex < 0 ? null : (Path) args[downloadIndex];
+    }
+
+    /**
+     * @return 分块并发下载参数，单连接下载时为null
+     */
+    public RangedDownload getRangedDownload() {
+        return rangedDownload;
+    }
+
+    /**
+     * 解析请求头数组为Map
+     *
+     * @param headers 请求头数组
+     * @since v1.0.0
+     */
+    static Map<String, String> parseHeaders(String[] headers) {
+        Map<String, String> headerMap = new LinkedHashMap<>();
+        for (String header : headers) {
+            String[] parts = header.split(":", 2);
+            if (parts.length == 2) {
+                headerMap.put(parts[0].trim(), parts[1].trim());
+            }
+        }
+        return headerMap;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public String getHttpMethod() {
+        return httpMethod;
+    }
+
+    public UrlTemplate getUrlTemplate() {
+        return urlTemplate;
+    }
+
+    public Type getResponseType() {
+        return responseType;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public long getTimeoutNanos() {
+        return timeoutNanos;
+    }
+
+    RateLimiter[] getRateLimiters() {
+        return rateLimiters;
+    }
+
+    public RateLimit.Mode getRateLimitMode() {
+        return rateLimitMode;
+    }
+
+    public long getRateLimitTimeout() {
+        return rateLimitTimeout;
+    }
+
+    public boolean isFireAndForget() {
+        return fireAndForget;
+    }
+
+    public RequestPriority getPriority() {
+        return priority;
+    }
+
+    public JsonExtractor getExtractor() {
+        return extractor;
+    }
+
+    HttpInterceptor[] getInterceptors() {
+        return interceptors;
+    }
+}
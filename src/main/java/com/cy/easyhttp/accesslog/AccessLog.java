@@ -0,0 +1,311 @@
+package com.cy.easyhttp.accesslog;
+
+import com.cy.easyhttp.MethodMetadata;
+import com.cy.easyhttp.trace.HttpSpan;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步访问日志
+ * <p>
+ * 调用线程只把固定字段写入预分配的环形缓冲区(一次CAS)，格式化和写文件都在后台线程完成；
+ * 缓冲区满时丢弃记录并计数，不阻塞调用方。后台线程空闲时逐步延长休眠，调用线程只在它休眠时唤醒它。
+ * <p>
+ * 采样规则：失败(异常或状态码 &gt;= 400)的调用总是记录；耗时超过 slowThreshold 的调用总是记录；
+ * 其余调用按 sampleRate 在调用开始时采样，slowOnly 时不记录。
+ * <pre>
+ * 2026-01-01T08:00:00.123Z GET /user/{id} UserApi.getUser 200 1532 12.345ms
+ * </pre>
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public class AccessLog implements Closeable {
+
+    private static final long MIN_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Slot[] slots;
+    private final int mask;
+    /**
+     * 下一个要占用的序号
+     */
+    private final AtomicLong head = new AtomicLong();
+    /**
+     * 下一个要消费的序号
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    private final AccessLogSink sink;
+    private final double sampleRate;
+    private final long slowNanos;
+    private final boolean slowOnly;
+    private final boolean logErrors;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final Thread writer;
+    /**
+     * 后台线程正在休眠，调用线程写入后需要唤醒
+     */
+    private volatile boolean sleeping;
+    private volatile boolean closed;
+
+    private AccessLog(Builder builder) {
+        int capacity = Integer.highestOneBit(Math.max(1, builder.bufferSize - 1)) << 1;
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+        this.sink = builder.sink;
+        this.sampleRate = builder.sampleRate;
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(builder.slowThreshold);
+        this.slowOnly = builder.slowOnly;
+        this.logErrors = builder.logErrors;
+        this.writer = new Thread(this::drain, "easy-http-access-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public static Builder newBuilder(AccessLogSink sink) {
+        return new Builder(sink);
+    }
+
+    /**
+     * 为一次调用创建收集日志字段的span
+     *
+     * @param metadata   方法元数据
+     * @param startNanos 调用开始时间 System.nanoTime()
+     * @param delegate   追踪span，可为null
+     * @return 包装后的span
+     */
+    public HttpSpan wrap(MethodMetadata metadata, long startNanos, HttpSpan delegate) {
+        boolean sampled = !slowOnly && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+        return new AccessLogSpan(this, metadata, delegate, startNanos, sampled);
+    }
+
+    /**
+     * 按采样规则写入缓冲区，缓冲区满时丢弃
+     */
+    void record(MethodMetadata metadata, long timestamp, long durationNanos, int status, long bytes,
+                Throwable error, boolean sampled) {
+        boolean failed = error != null || status >= 400;
+        boolean slow = slowNanos > 0 && durationNanos >= slowNanos;
+        if (!(sampled || slow || (failed && logErrors)) || closed) {
+            return;
+        }
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - tail.get() >= slots.length) {
+                dropped.increment();
+                return;
+            }
+        } while (!head.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.metadata = metadata;
+        slot.timestamp = timestamp;
+        slot.durationNanos = durationNanos;
+        slot.status = status;
+        slot.bytes = bytes;
+        slot.error = error == null ? null : error.getClass();
+        // 发布，消费线程看到序号后才读取字段
+        slot.sequence = sequence + 1;
+        if (sleeping) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * 后台线程：按序号读取记录，格式化后写入sink；没有记录时刷新sink，
+     * 然后休眠，休眠时间从 1ms 起每次加倍直到 100ms，有新记录时由调用线程唤醒
+     */
+    private void drain() {
+        StringBuilder line = new StringBuilder(256);
+        long next = tail.get();
+        boolean dirty = false;
+        long parkNanos = MIN_PARK_NANOS;
+        while (true) {
+            Slot slot = slots[(int) (next & mask)];
+            if (slot.sequence != next + 1) {
+                if (closed && head.get() == next) {
+                    break;
+                }
+                if (dirty) {
+                    dirty = !flush();
+                }
+                sleeping = true;
+                // 设置标记后再检查一次，避免错过标记之前发布的记录
+                if (slot.sequence != next + 1 && !closed) {
+                    LockSupport.parkNanos(this, parkNanos);
+                    parkNanos = Math.min(parkNanos << 1, MAX_PARK_NANOS);
+                }
+                sleeping = false;
+                continue;
+            }
+            parkNanos = MIN_PARK_NANOS;
+            line.setLength(0);
+            format(slot, line);
+            slot.metadata = null;
+            slot.error = null;
+            tail.lazySet(++next);
+            try {
+                sink.write(line);
+                written.increment();
+                dirty = true;
+            } catch (IOException | RuntimeException e) {
+                dropped.increment();
+            }
+        }
+        try {
+            sink.close();
+        } catch (IOException | RuntimeException e) {
+            // 关闭时忽略
+        }
+    }
+
+    private boolean flush() {
+        try {
+            sink.flush();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static void format(Slot slot, StringBuilder line) {
+        MethodMetadata metadata = slot.metadata;
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(slot.timestamp), line);
+        line.append(' ').append(metadata.getHttpMethod())
+                .append(' ').append(metadata.getUrlTemplate().getPath())
+                .append(' ').append(metadata.getMethod().getDeclaringClass().getSimpleName())
+                .append('.').append(metadata.getMethod().getName())
+                .append(' ');
+        if (slot.status > 0) {
+            line.append(slot.status);
+        } else {
+            line.append('-');
+        }
+        line.append(' ');
+        if (slot.bytes >= 0) {
+            line.append(slot.bytes);
+        } else {
+            line.append('-');
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(slot.durationNanos);
+        line.append(' ').append(micros / 1000).append('.');
+        long fraction = micros % 1000;
+        if (fraction < 100) {
+            line.append('0');
+        }
+        if (fraction < 10) {
+            line.append('0');
+        }
+        line.append(fraction).append("ms");
+        if (slot.error != null) {
+            line.append(" error=").append(slot.error.getName());
+        }
+    }
+
+    /**
+     * 停止后台线程，写完缓冲区中剩余的记录后关闭sink
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return 因缓冲区满或写入失败丢弃的记录数
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return 已写入的记录数
+     */
+    public long getWritten() {
+        return written.sum();
+    }
+
+    /**
+     * 环形缓冲区中的一条记录，字段在发布序号之前写入
+     */
+    private static final class Slot {
+        private volatile long sequence;
+        private MethodMetadata metadata;
+        private long timestamp;
+        private long durationNanos;
+        private int status;
+        private long bytes;
+        private Class<?> error;
+    }
+
+    public static class Builder {
+        private final AccessLogSink sink;
+        private int bufferSize = 8192;
+        private double sampleRate = 1.0;
+        private long slowThreshold = 0;   // 默认不按耗时记录
+        private boolean slowOnly = false;
+        private boolean logErrors = true;
+
+        private Builder(AccessLogSink sink) {
+            this.sink = sink;
+        }
+
+        /**
+         * 环形缓冲区大小，向上取整为2的幂
+         */
+        public Builder bufferSize(int bufferSize) { this.bufferSize = bufferSize; return this; }
+
+        /**
+         * 普通调用的采样比例，取值 [0, 1]
+         */
+        public Builder sampleRate(double sampleRate) {
+            if (sampleRate < 0 || sampleRate > 1) {
+                throw new IllegalArgumentException("sampleRate must be in [0, 1]");
+            }
+            this.sampleRate = sampleRate;
+            return this;
+        }
+
+        /**
+         * 耗时超过该毫秒数的调用总是记录，0 表示不启用
+         */
+        public Builder slowThreshold(long millis) { this.slowThreshold = millis; return this; }
+
+        /**
+         * 只记录慢调用和失败的调用
+         */
+        public Builder slowOnly(boolean slowOnly) { this.slowOnly = slowOnly; return this; }
+
+        /**
+         * 是否总是记录失败的调用
+         */
+        public Builder logErrors(boolean logErrors) { this.logErrors = logErrors; return this; }
+
+        public AccessLog build() {
+            if (sink == null) {
+                throw new IllegalArgumentException("sink is required");
+            }
+            return new AccessLog(this);
+        }
+    }
+}
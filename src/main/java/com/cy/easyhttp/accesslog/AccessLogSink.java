@@ -0,0 +1,31 @@
+package com.cy.easyhttp.accesslog;
+
+import java.io.IOException;
+
+/**
+ * 访问日志输出，只在后台线程中调用
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+@FunctionalInterface
+public interface AccessLogSink {
+
+    /**
+     * 写入一行日志，不含换行符
+     */
+    void write(CharSequence line) throws IOException;
+
+    /**
+     * 缓冲区中没有待写的记录时调用
+     */
+    default void flush() throws IOException {
+    }
+
+    /**
+     * 访问日志关闭时调用
+     */
+    default void close() throws IOException {
+        flush();
+    }
+}
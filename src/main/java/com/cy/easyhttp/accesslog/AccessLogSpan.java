@@ -0,0 +1,75 @@
+package com.cy.easyhttp.accesslog;
+
+import com.cy.easyhttp.MethodMetadata;
+import com.cy.easyhttp.trace.HttpSpan;
+import com.cy.easyhttp.trace.TraceContext;
+
+/**
+ * 收集一次调用的访问日志字段，同时转发给追踪span
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+final class AccessLogSpan implements HttpSpan {
+
+    private final AccessLog accessLog;
+    private final MethodMetadata metadata;
+    /**
+     * 追踪span，可为null
+     */
+    private final HttpSpan delegate;
+    private final long timestamp;
+    private final long startNanos;
+    private final boolean sampled;
+    private int status;
+    private long bytes = -1;
+
+    AccessLogSpan(AccessLog accessLog, MethodMetadata metadata, HttpSpan delegate, long startNanos, boolean sampled) {
+        this.accessLog = accessLog;
+        this.metadata = metadata;
+        this.delegate = delegate;
+        this.timestamp = System.currentTimeMillis();
+        this.startNanos = startNanos;
+        this.sampled = sampled;
+    }
+
+    @Override
+    public TraceContext context() {
+        return delegate == null ? null : delegate.context();
+    }
+
+    @Override
+    public void onPhase(Phase phase, long startNanos, long endNanos) {
+        if (delegate != null) {
+            delegate.onPhase(phase, startNanos, endNanos);
+        }
+    }
+
+    @Override
+    public void onStatus(int code) {
+        this.status = code;
+        if (delegate != null) {
+            delegate.onStatus(code);
+        }
+    }
+
+    @Override
+    public void onResponseSize(long bytes) {
+        this.bytes = bytes;
+        if (delegate != null) {
+            delegate.onResponseSize(bytes);
+        }
+    }
+
+    @Override
+    public void end(Throwable error) {
+        accessLog.record(metadata, timestamp, System.nanoTime() - startNanos, status, bytes, error, sampled);
+        if (delegate != null) {
+            try {
+                delegate.end(error);
+            } catch (RuntimeException ignored) {
+                // 追踪实现失败不影响业务调用
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.cy.easyhttp.accesslog;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 按大小滚动的日志文件，写满后依次重命名为 access.log.1、access.log.2 …，超过保留数量的删除
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public class RollingFileSink implements AccessLogSink {
+
+    private final Path file;
+    private final long maxBytes;
+    private final int maxFiles;
+    private BufferedWriter writer;
+    private long size;
+
+    /**
+     * @param file     日志文件
+     * @param maxBytes 单个文件最大字节数
+     * @param maxFiles 保留的历史文件数
+     */
+    public RollingFileSink(Path file, long maxBytes, int maxFiles) throws IOException {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        open();
+    }
+
+    public RollingFileSink(String file) throws IOException {
+        this(Paths.get(file), 64L * 1024 * 1024, 5);
+    }
+
+    @Override
+    public void write(CharSequence line) throws IOException {
+        if (size + line.length() + 1 > maxBytes && size > 0) {
+            roll();
+        }
+        writer.append(line).append('\n');
+        // 按字符数估算，避免逐行编码计算字节数
+        size += line.length() + 1;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void open() throws IOException {
+        writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8), 64 * 1024);
+        size = Files.size(file);
+    }
+
+    private void roll() throws IOException {
+        writer.close();
+        Files.deleteIfExists(history(maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            if (Files.exists(history(i))) {
+                Files.move(history(i), history(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles > 0) {
+            Files.move(file, history(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(file);
+        }
+        open();
+    }
+
+    private Path history(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+}
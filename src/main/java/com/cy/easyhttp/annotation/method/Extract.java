@@ -0,0 +1,43 @@
+package com.cy.easyhttp.annotation.method;
+
+import java.lang.annotation.*;
+
+/**
+ * 只反序列化响应中的一部分，用于剥离 {"code":0,"msg":"ok","data":{...}} 这类外层包装
+ * <p>
+ * 按 JSON Pointer 定位要返回的节点，解析时跳过其它字段而不构建对象；
+ * 设置 status 时同时校验包装中的状态码，不在 success 中时抛出 ResponseEnvelopeException。
+ * 方法上的注解优先于接口上的注解。
+ * <pre>
+ * &#64;Get("/users")
+ * &#64;Extract(value = "/data/items", status = "/code", message = "/msg")
+ * List&lt;User&gt; listUsers();
+ * </pre>
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Extract {
+    /**
+     * 要反序列化的节点，如 /data/items
+     */
+    String value();
+
+    /**
+     * 状态码节点，如 /code，为空时不校验
+     */
+    String status() default "";
+
+    /**
+     * 表示成功的状态码
+     */
+    String[] success() default {"0"};
+
+    /**
+     * 错误信息节点，如 /msg，校验失败时放入异常信息
+     */
+    String message() default "";
+}
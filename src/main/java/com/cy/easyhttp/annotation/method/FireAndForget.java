@@ -0,0 +1,19 @@
+package com.cy.easyhttp.annotation.method;
+
+import java.lang.annotation.*;
+
+/**
+ * 不关心响应的请求，只能用于返回 void 的方法
+ * <p>
+ * 配置了 Journal 时拦截器在调用线程执行，请求随后写入本地日志并立即返回，由后台线程按限流发送并在失败时重试，
+ * 进程重启后继续发送；拦截器收到的结果总是null。后台发送与同步调用一样经过优先级调度、方法超时、追踪和访问日志，
+ * 但没有调用方的截止时间。未配置时在异步线程中发送，失败时丢弃。
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface FireAndForget {
+}
@@ -0,0 +1,18 @@
+package com.cy.easyhttp.annotation.method;
+
+import com.cy.easyhttp.schedule.RequestPriority;
+
+import java.lang.annotation.*;
+
+/**
+ * 请求优先级，配置了 PriorityScheduler 时并发达到上限后按优先级排队；方法上的注解优先于接口上的注解
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Priority {
+    RequestPriority value();
+}
@@ -0,0 +1,52 @@
+package com.cy.easyhttp.annotation.method;
+
+import java.lang.annotation.*;
+
+/**
+ * 客户端限流，标注在接口上时接口内所有方法共享同一个限流器，标注在方法上时该方法单独限流
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RateLimit {
+    /**
+     * 每秒允许的请求数
+     */
+    double value();
+
+    /**
+     * 允许的突发请求数
+     */
+    int burst() default 1;
+
+    /**
+     * 获取许可的方式
+     */
+    Mode mode() default Mode.BLOCK;
+
+    /**
+     * TIMED 模式下最长等待时间，单位毫秒
+     */
+    long timeout() default 0;
+
+    /**
+     * 获取许可的方式
+     */
+    enum Mode {
+        /**
+         * 阻塞等待直到获得许可
+         */
+        BLOCK,
+        /**
+         * 最多等待 timeout 毫秒，超时失败
+         */
+        TIMED,
+        /**
+         * 没有可用许可时立即失败
+         */
+        FAIL_FAST
+    }
+}
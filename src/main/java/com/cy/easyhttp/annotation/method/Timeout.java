@@ -0,0 +1,25 @@
+package com.cy.easyhttp.annotation.method;
+
+import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 方法级超时，从调用开始计时，与调用方设置的 Deadline 取较早者
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Timeout {
+    /**
+     * 超时时长
+     */
+    long value();
+
+    /**
+     * 时间单位，默认毫秒
+     */
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+}
@@ -0,0 +1,31 @@
+package com.cy.easyhttp.annotation.param;
+
+import java.lang.annotation.*;
+
+/**
+ * 下载目标文件，参数类型为 java.nio.file.Path
+ * 响应体直接流式写入该文件，方法返回值可以是 void、Path 或 long(写入字节数)
+ * parallelism 大于1时按 Range 分块并发下载
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface DownloadTo {
+
+    /**
+     * 并发下载的连接数，1 表示单连接下载
+     *
+     * @return 并发数
+     */
+    int parallelism() default 1;
+
+    /**
+     * 分块大小，单位字节
+     *
+     * @return 分块大小
+     */
+    long chunkSize() default 8 * 1024 * 1024;
+}
@@ -4,6 +4,9 @@ import java.lang.annotation.*;
 
 /**
  * json请求体注解
+ * <p>
+ * 参数为 Stream、Iterator 或 Publisher(java.util.concurrent.Flow / org.reactivestreams)时，
+ * 元素逐个序列化并以分块传输编码发送，不在内存中构建整个请求体。
  *
  * @author cy
  * @since v1.0.0
@@ -12,4 +15,23 @@ import java.lang.annotation.*;
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
 public @interface JsonBody {
+
+    /**
+     * 流式参数的输出格式，默认JSON数组
+     */
+    Format format() default Format.ARRAY;
+
+    /**
+     * 流式请求体格式
+     */
+    enum Format {
+        /**
+         * JSON数组 [{...},{...}]，Content-Type: application/json
+         */
+        ARRAY,
+        /**
+         * 每行一个JSON(NDJSON)，Content-Type: application/x-ndjson
+         */
+        NDJSON
+    }
 }
@@ -20,9 +20,9 @@ public @interface QueryParam {
     String value();
 
     /**
-     * 是否必须
+     * 是否必须，为true时参数值为null抛出 IllegalArgumentException；默认false，值为null时不添加该参数
      *
      * @return 是否必须
      */
-    boolean required() default true;
+    boolean required() default false;
 }
@@ -0,0 +1,106 @@
+package com.cy.easyhttp.deadline;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 调用截止时间
+ * <p>
+ * 调用方通过 {@link #attach()} 设置当前线程的截止时间，期间通过客户端发出的请求都不会超过剩余预算：
+ * 每次发送前按剩余时间设置okhttp的 call timeout，预算耗尽时直接失败而不再发送。
+ * 异步方法会把截止时间带到异步线程。
+ * <pre>
+ * try (Deadline.Scope ignored = Deadline.after(200, TimeUnit.MILLISECONDS).attach()) {
+ *     apiService.ping();
+ * }
+ * </pre>
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 截止时间，System.nanoTime() 基准
+     */
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * 从现在开始计算的截止时间
+     */
+    public static Deadline after(long duration, TimeUnit unit) {
+        return new Deadline(System.nanoTime() + unit.toNanos(duration));
+    }
+
+    /**
+     * @return 当前线程的截止时间，没有时返回null
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return 剩余纳秒数，已过期时小于等于0
+     */
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    public long remaining(TimeUnit unit) {
+        return unit.convert(remainingNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * 取较早的截止时间
+     *
+     * @param other 另一个截止时间，可为null
+     */
+    public Deadline min(Deadline other) {
+        return other == null || deadlineNanos - other.deadlineNanos <= 0 ? this : other;
+    }
+
+    /**
+     * 设置为当前线程的截止时间
+     *
+     * @return 关闭时恢复之前的截止时间
+     */
+    public Scope attach() {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(this);
+        return new Scope(previous);
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline[remaining=" + remaining(TimeUnit.MILLISECONDS) + "ms]";
+    }
+
+    /**
+     * 截止时间作用域
+     */
+    public static final class Scope implements AutoCloseable {
+        private final Deadline previous;
+
+        private Scope(Deadline previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.cy.easyhttp.deadline;
+
+/**
+ * 调用超过截止时间
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+
+    public DeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,313 @@
+package com.cy.easyhttp.dns;
+
+import okhttp3.Dns;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 带缓存的DNS实现
+ * <p>
+ * 按记录的TTL缓存解析结果；有效期过了 refreshAhead 比例后，命中的查询照常返回，同时在后台刷新，
+ * 使热点主机不会在请求路径上同步查询；解析失败时在 maxStale 时间内继续使用过期记录。
+ * 刷新或查询失败后按指数退避，退避期间不再查询，避免持续请求不可用的解析器。
+ * 同一主机的并发同步查询合并为一次。返回的地址列表可以打乱顺序，让连接分散到多个A记录上。
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public class CachingDns implements Dns {
+
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final DnsResolver resolver;
+    private final long minTtlNanos;
+    private final long maxTtlNanos;
+    private final long maxStaleNanos;
+    private final double refreshAhead;
+    private final long refreshBackoffNanos;
+    private final boolean shuffle;
+    private final Executor executor;
+    /**
+     * 纳秒时钟
+     */
+    private final LongSupplier ticker;
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    /**
+     * 进行中的同步查询，用于合并同一主机的并发查询
+     */
+    private final Map<String, CompletableFuture<DnsAnswer>> inflight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private CachingDns(Builder builder) {
+        this.resolver = builder.resolver != null ? builder.resolver : DnsResolver.system();
+        this.minTtlNanos = TimeUnit.SECONDS.toNanos(builder.minTtl);
+        this.maxTtlNanos = TimeUnit.SECONDS.toNanos(builder.maxTtl);
+        this.maxStaleNanos = TimeUnit.SECONDS.toNanos(builder.maxStale);
+        this.refreshAhead = builder.refreshAhead;
+        this.refreshBackoffNanos = TimeUnit.SECONDS.toNanos(builder.refreshBackoff);
+        this.shuffle = builder.shuffle;
+        this.executor = builder.executor != null ? builder.executor : RefreshExecutor.INSTANCE;
+        this.ticker = builder.ticker;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    @Override
+    public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+        long now = ticker.getAsLong();
+        Entry entry = cache.get(hostname);
+        if (entry != null && now - entry.expiresAt < 0) {
+            hits.increment();
+            if (now - entry.refreshAt >= 0 && now - entry.retryAt >= 0 && entry.refreshing.compareAndSet(false, true)) {
+                refresh(hostname, entry);
+            }
+            return order(entry.addresses);
+        }
+
+        boolean staleUsable = entry != null && now - entry.expiresAt - maxStaleNanos < 0;
+        // 上次查询失败后的退避期内直接使用过期记录
+        if (staleUsable && now - entry.retryAt < 0) {
+            staleHits.increment();
+            return order(entry.addresses);
+        }
+        misses.increment();
+        try {
+            return order(resolveShared(hostname).getAddresses());
+        } catch (UnknownHostException e) {
+            // 解析失败时使用过期记录
+            if (staleUsable) {
+                entry.backoff(ticker.getAsLong(), refreshBackoffNanos);
+                staleHits.increment();
+                return order(entry.addresses);
+            }
+            cache.remove(hostname, entry);
+            failures.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * 移除某个主机的缓存
+     */
+    public void evict(String hostname) {
+        cache.remove(hostname);
+    }
+
+    public DnsStats stats() {
+        return new DnsStats(hits.sum(), misses.sum(), refreshes.sum(), refreshFailures.sum(),
+                staleHits.sum(), failures.sum(), cache.size());
+    }
+
+    /**
+     * 同步解析，同一主机的并发查询只有一个线程真正执行
+     */
+    private DnsAnswer resolveShared(String hostname) throws UnknownHostException {
+        CompletableFuture<DnsAnswer> future = new CompletableFuture<>();
+        CompletableFuture<DnsAnswer> existing = inflight.putIfAbsent(hostname, future);
+        if (existing == null) {
+            try {
+                DnsAnswer answer = resolveAndCache(hostname);
+                future.complete(answer);
+                return answer;
+            } catch (UnknownHostException | RuntimeException e) {
+                future.completeExceptionally(e);
+                throw e;
+            } finally {
+                inflight.remove(hostname, future);
+            }
+        }
+        try {
+            return existing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw unknownHost(hostname, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UnknownHostException) {
+                throw (UnknownHostException) e.getCause();
+            }
+            throw unknownHost(hostname, e.getCause());
+        }
+    }
+
+    private void refresh(String hostname, Entry entry) {
+        refreshes.increment();
+        try {
+            executor.execute(() -> {
+                try {
+                    resolveAndCache(hostname);
+                } catch (UnknownHostException | RuntimeException e) {
+                    // 刷新失败时保留旧记录并退避，过期后由同步查询处理
+                    refreshFailures.increment();
+                    entry.backoff(ticker.getAsLong(), refreshBackoffNanos);
+                } finally {
+                    entry.refreshing.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshFailures.increment();
+            entry.refreshing.set(false);
+        }
+    }
+
+    private DnsAnswer resolveAndCache(String hostname) throws UnknownHostException {
+        DnsAnswer answer = resolver.resolve(hostname);
+        // 负数TTL表示不过期，由 maxTtl 限制
+        long ttlNanos = answer.getTtl() < 0 ? maxTtlNanos
+                : Math.min(maxTtlNanos, Math.max(minTtlNanos, TimeUnit.SECONDS.toNanos(answer.getTtl())));
+        long now = ticker.getAsLong();
+        cache.put(hostname, new Entry(answer.getAddresses(), now + (long) (ttlNanos * refreshAhead), now + ttlNanos));
+        return answer;
+    }
+
+    private List<InetAddress> order(List<InetAddress> addresses) {
+        if (!shuffle || addresses.size() < 2) {
+            return addresses;
+        }
+        List<InetAddress> shuffled = new ArrayList<>(addresses);
+        Collections.shuffle(shuffled, ThreadLocalRandom.current());
+        return shuffled;
+    }
+
+    private static UnknownHostException unknownHost(String hostname, Throwable cause) {
+        UnknownHostException e = new UnknownHostException(hostname);
+        e.initCause(cause);
+        return e;
+    }
+
+    /**
+     * 缓存的记录，时间均为 ticker 基准
+     */
+    private static final class Entry {
+        private final List<InetAddress> addresses;
+        private final long refreshAt;
+        private final long expiresAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        /**
+         * 查询失败后，在此时间之前不再查询
+         */
+        private volatile long retryAt;
+        private volatile int failedAttempts;
+
+        Entry(List<InetAddress> addresses, long refreshAt, long expiresAt) {
+            this.addresses = addresses;
+            this.refreshAt = refreshAt;
+            this.expiresAt = expiresAt;
+            this.retryAt = refreshAt;
+        }
+
+        /**
+         * 记录一次失败，退避时间从 initialNanos 开始翻倍，最长 {@link #MAX_BACKOFF_NANOS}
+         */
+        void backoff(long now, long initialNanos) {
+            int attempts = failedAttempts++;
+            retryAt = now + Math.min(MAX_BACKOFF_NANOS, initialNanos << Math.min(attempts, 16));
+        }
+    }
+
+    /**
+     * 默认后台刷新线程池，首次使用时才创建
+     */
+    private static class RefreshExecutor {
+        private static final ExecutorService INSTANCE = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "easy-http-dns");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static class Builder {
+        private DnsResolver resolver;
+        private long minTtl = 1;          // 默认 1 秒
+        private long maxTtl = 3600;       // 默认 1 小时
+        private long maxStale = 300;      // 默认 5 分钟
+        private double refreshAhead = 0.8;
+        private long refreshBackoff = 1;  // 默认 1 秒，失败后翻倍，最长 1 分钟
+        private boolean shuffle = true;
+        private Executor executor;
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder() {
+        }
+
+        /**
+         * 实际执行查询的解析器，默认为系统解析器
+         */
+        public Builder resolver(DnsResolver resolver) { this.resolver = resolver; return this; }
+
+        public Builder minTtl(long seconds) { this.minTtl = seconds; return this; }
+
+        public Builder maxTtl(long seconds) { this.maxTtl = seconds; return this; }
+
+        /**
+         * 解析失败时过期记录还能使用的时间，0 表示不使用过期记录
+         */
+        public Builder maxStale(long seconds) { this.maxStale = seconds; return this; }
+
+        /**
+         * 经过TTL的多少比例后开始后台刷新，取值 (0, 1]，1 表示不提前刷新
+         */
+        public Builder refreshAhead(double ratio) {
+            if (ratio <= 0 || ratio > 1) {
+                throw new IllegalArgumentException("refreshAhead must be in (0, 1]");
+            }
+            this.refreshAhead = ratio;
+            return this;
+        }
+
+        /**
+         * 刷新或查询失败后的初始退避秒数
+         */
+        public Builder refreshBackoff(long seconds) { this.refreshBackoff = seconds; return this; }
+
+        /**
+         * 是否打乱返回的地址顺序
+         */
+        public Builder shuffle(boolean shuffle) { this.shuffle = shuffle; return this; }
+
+        /**
+         * 后台刷新使用的线程池
+         */
+        public Builder executor(Executor executor) { this.executor = executor; return this; }
+
+        /**
+         * 纳秒时钟，默认 System.nanoTime()，测试时可替换为手动推进的时钟
+         */
+        public Builder ticker(LongSupplier ticker) { this.ticker = ticker; return this; }
+
+        public CachingDns build() {
+            return new CachingDns(this);
+        }
+    }
+}
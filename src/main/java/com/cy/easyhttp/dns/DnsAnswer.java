@@ -0,0 +1,36 @@
+package com.cy.easyhttp.dns;
+
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一次DNS解析的结果
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public final class DnsAnswer {
+
+    private final List<InetAddress> addresses;
+    /**
+     * 记录的有效期，单位秒，负数表示不过期(由缓存的 maxTtl 限制)
+     */
+    private final long ttl;
+
+    public DnsAnswer(List<InetAddress> addresses, long ttl) {
+        if (addresses == null || addresses.isEmpty()) {
+            throw new IllegalArgumentException("addresses must not be empty");
+        }
+        this.addresses = Collections.unmodifiableList(addresses);
+        this.ttl = ttl;
+    }
+
+    public List<InetAddress> getAddresses() {
+        return addresses;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+}
@@ -0,0 +1,44 @@
+package com.cy.easyhttp.dns;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.security.Security;
+import java.util.Arrays;
+
+/**
+ * 实际执行DNS查询的解析器，{@link CachingDns} 在其之上做缓存；测试时可以替换为桩实现
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+@FunctionalInterface
+public interface DnsResolver {
+
+    /**
+     * 解析主机名
+     *
+     * @param hostname 主机名
+     * @return 解析结果
+     * @throws UnknownHostException 解析失败
+     */
+    DnsAnswer resolve(String hostname) throws UnknownHostException;
+
+    /**
+     * 使用系统解析器(InetAddress)，JDK不暴露记录的TTL，有效期取 networkaddress.cache.ttl，未设置时为30秒；
+     * -1(永久缓存)时记录不过期，由 {@link CachingDns} 的 maxTtl 限制
+     */
+    static DnsResolver system() {
+        long ttl = 30;
+        String value = Security.getProperty("networkaddress.cache.ttl");
+        if (value != null) {
+            try {
+                long parsed = Long.parseLong(value.trim());
+                ttl = parsed < 0 ? -1 : parsed;
+            } catch (NumberFormatException ignored) {
+                // 使用默认值
+            }
+        }
+        long systemTtl = ttl;
+        return hostname -> new DnsAnswer(Arrays.asList(InetAddress.getAllByName(hostname)), systemTtl);
+    }
+}
@@ -0,0 +1,84 @@
+package com.cy.easyhttp.dns;
+
+/**
+ * DNS缓存统计快照
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public final class DnsStats {
+
+    private final long hits;
+    private final long misses;
+    private final long refreshes;
+    private final long refreshFailures;
+    private final long staleHits;
+    private final long failures;
+    private final int size;
+
+    DnsStats(long hits, long misses, long refreshes, long refreshFailures, long staleHits, long failures, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.refreshes = refreshes;
+        this.refreshFailures = refreshFailures;
+        this.staleHits = staleHits;
+        this.failures = failures;
+        this.size = size;
+    }
+
+    /**
+     * 命中有效缓存的次数
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * 同步查询的次数(缓存不存在或已过期)
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * 后台提前刷新的次数
+     */
+    public long getRefreshes() {
+        return refreshes;
+    }
+
+    /**
+     * 后台刷新失败的次数
+     */
+    public long getRefreshFailures() {
+        return refreshFailures;
+    }
+
+    /**
+     * 查询失败时返回过期记录的次数
+     */
+    public long getStaleHits() {
+        return staleHits;
+    }
+
+    /**
+     * 查询失败且没有可用记录的次数
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * 缓存的主机数
+     */
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "DnsStats{hits=" + hits + ", misses=" + misses + ", refreshes=" + refreshes
+                + ", refreshFailures=" + refreshFailures + ", staleHits=" + staleHits
+                + ", failures=" + failures + ", size=" + size + '}';
+    }
+}
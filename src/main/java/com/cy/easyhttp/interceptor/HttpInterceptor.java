@@ -0,0 +1,53 @@
+package com.cy.easyhttp.interceptor;
+
+import com.cy.easyhttp.MethodMetadata;
+import okhttp3.Request;
+
+/**
+ * 请求拦截器，可用于签名、鉴权刷新、链路追踪、自定义缓存等
+ * <p>
+ * 拦截器按注册顺序组成调用链，同步和异步(CompletableFuture)方法都会经过拦截器，
+ * 异步方法中拦截器运行在异步线程上。
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public interface HttpInterceptor {
+
+    /**
+     * 拦截请求
+     *
+     * @param chain 调用链
+     * @return 反序列化后的响应结果，通常为 chain.proceed(chain.request()) 的返回值
+     */
+    Object intercept(Chain chain);
+
+    /**
+     * 调用链
+     */
+    interface Chain {
+
+        /**
+         * @return 当前接口方法的执行计划
+         */
+        MethodMetadata metadata();
+
+        /**
+         * @return 接口方法参数
+         */
+        Object[] args();
+
+        /**
+         * @return 当前请求
+         */
+        Request request();
+
+        /**
+         * 继续执行调用链
+         *
+         * @param request 请求，可以是修改后的请求
+         * @return 反序列化后的响应结果
+         */
+        Object proceed(Request request);
+    }
+}
@@ -0,0 +1,67 @@
+package com.cy.easyhttp.interceptor;
+
+import com.cy.easyhttp.MethodMetadata;
+import com.cy.easyhttp.trace.HttpSpan;
+import com.cy.easyhttp.util.HttpUtil;
+import okhttp3.Request;
+
+import java.util.function.Function;
+
+/**
+ * 拦截器调用链实现，末端默认由 {@link HttpUtil} 发送请求
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public final class RealInterceptorChain implements HttpInterceptor.Chain {
+
+    private final HttpInterceptor[] interceptors;
+    private final int index;
+    private final MethodMetadata metadata;
+    private final Object[] args;
+    private final Request request;
+    /**
+     * 所有拦截器之后的处理，如发送请求或写入日志
+     */
+    private final Function<Request, Object> terminal;
+
+    public RealInterceptorChain(HttpInterceptor[] interceptors, int index, MethodMetadata metadata,
+                                Object[] args, Request request, HttpUtil httpUtil, HttpSpan span) {
+        this(interceptors, index, metadata, args, request,
+                r -> httpUtil.execute(r, metadata.getResponseType(), span));
+    }
+
+    public RealInterceptorChain(HttpInterceptor[] interceptors, int index, MethodMetadata metadata,
+                                Object[] args, Request request, Function<Request, Object> terminal) {
+        this.interceptors = interceptors;
+        this.index = index;
+        this.metadata = metadata;
+        this.args = args;
+        this.request = request;
+        this.terminal = terminal;
+    }
+
+    @Override
+    public MethodMetadata metadata() {
+        return metadata;
+    }
+
+    @Override
+    public Object[] args() {
+        return args;
+    }
+
+    @Override
+    public Request request() {
+        return request;
+    }
+
+    @Override
+    public Object proceed(Request request) {
+        if (index >= interceptors.length) {
+            return terminal.apply(request);
+        }
+        RealInterceptorChain next = new RealInterceptorChain(interceptors, index + 1, metadata, args, request, terminal);
+        return interceptors[index].intercept(next);
+    }
+}
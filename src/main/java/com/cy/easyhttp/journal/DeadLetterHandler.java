@@ -0,0 +1,24 @@
+package com.cy.easyhttp.journal;
+
+import okhttp3.Request;
+
+/**
+ * 处理无法投递的日志记录，如写入单独的文件或告警
+ * <p>
+ * 在发送线程中调用，不应长时间阻塞；抛出的异常会被忽略。
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+@FunctionalInterface
+public interface DeadLetterHandler {
+
+    /**
+     * 记录被服务端拒绝(4xx)，或重试次数、存放时间超出上限
+     *
+     * @param request 请求
+     * @param code    最后一次响应的状态码，没有响应时为-1
+     * @param cause   最后一次发送的异常，可为null
+     */
+    void onDeadLetter(Request request, int code, Throwable cause);
+}
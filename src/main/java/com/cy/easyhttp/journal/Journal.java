@@ -0,0 +1,828 @@
+package com.cy.easyhttp.journal;
+
+import com.cy.easyhttp.annotation.method.RateLimit;
+import com.cy.easyhttp.ratelimit.RateLimitPermit;
+import com.cy.easyhttp.ratelimit.RateLimiter;
+import com.cy.easyhttp.transport.HttpTransport;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 持久化的请求日志，用于 @FireAndForget 方法
+ * <p>
+ * 请求编码后追加到内存映射的段文件中，调用方只需要一次内存拷贝；后台线程按固定间隔批量刷盘。
+ * 发送线程按顺序读取记录并发发送，每条记录独立地退避重试，游标只推进到第一条未完成的记录之前，
+ * 因此进程崩溃或重启后游标之后的记录会重新发送(至少一次)。被服务端拒绝(4xx)或超过 maxAttempts、
+ * maxAge 的记录交给 {@link DeadLetterHandler} 后跳过，不会阻塞后续记录。
+ * 发送时按注册的路由使用方法的限流器，未注册的路由使用 host 级限流器。
+ * 段文件总大小受配额限制，写满时调用方最多阻塞 blockTimeout，仍没有空间则抛出 {@link JournalFullException}。
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public class Journal implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CURSOR_FILE = "cursor";
+    private static final RateLimiter[] NO_LIMITERS = new RateLimiter[0];
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long maxBytes;
+    private final long blockTimeoutNanos;
+    private final long flushInterval;
+    private final int maxInFlight;
+    private final int senders;
+    private final long maxBackoff;
+    private final int maxAttempts;
+    private final long maxAge;
+    private final DeadLetterHandler deadLetterHandler;
+
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * 有新记录或有记录处理完
+     */
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    /**
+     * 当前写入的段，只在持有锁时访问
+     */
+    private Segment active;
+
+    /**
+     * 读取位置，只在发送线程中访问
+     */
+    private Segment readSegment;
+    private int readOffset;
+    /**
+     * 已读取、游标尚未越过的记录，按读取顺序排列，只在发送线程中访问
+     */
+    private final ArrayDeque<Pending> window = new ArrayDeque<>();
+    /**
+     * 正在发送或等待重试的记录数
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * 路由 -> 限流器和发送方
+     */
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+    private volatile Map<String, RateLimiter> hostLimiters = Collections.emptyMap();
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean closed;
+    private HttpTransport transport;
+    private Thread drainer;
+    private ScheduledExecutorService timer;
+    private ExecutorService sendPool;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final LongAdder deleteFailures = new LongAdder();
+    private final LongAdder cursorFailures = new LongAdder();
+
+    private Journal(Builder builder) throws IOException {
+        this.directory = builder.directory;
+        this.segmentSize = builder.segmentSize;
+        this.maxBytes = builder.maxBytes;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(builder.blockTimeout);
+        this.flushInterval = builder.flushInterval;
+        this.maxInFlight = builder.maxInFlight;
+        this.senders = builder.senders;
+        this.maxBackoff = builder.maxBackoff;
+        this.maxAttempts = builder.maxAttempts;
+        this.maxAge = builder.maxAge;
+        this.deadLetterHandler = builder.deadLetterHandler;
+        recover();
+    }
+
+    public static Builder newBuilder(Path directory) {
+        return new Builder(directory);
+    }
+
+    /**
+     * 打开已有的段文件，从游标处继续发送上次未完成的记录
+     */
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                long id = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(id, Segment.open(file, id, segmentSize));
+            }
+        }
+
+        long cursorSegment = -1;
+        int cursorOffset = 0;
+        Path cursorFile = directory.resolve(CURSOR_FILE);
+        if (Files.exists(cursorFile)) {
+            ByteBuffer cursor = ByteBuffer.wrap(Files.readAllBytes(cursorFile));
+            cursorSegment = cursor.getLong();
+            cursorOffset = cursor.getInt();
+        }
+        // 游标之前的段已发送完
+        for (Segment segment : new ArrayList<>(segments.headMap(cursorSegment).values())) {
+            segments.remove(segment.id);
+            segment.delete();
+        }
+
+        if (segments.isEmpty()) {
+            long id = Math.max(0, cursorSegment);
+            segments.put(id, Segment.open(segmentFile(id), id, segmentSize));
+        }
+        for (Segment segment : segments.headMap(segments.lastKey()).values()) {
+            segment.sealed = true;
+        }
+        active = segments.lastEntry().getValue();
+        readSegment = segments.firstEntry().getValue();
+        readOffset = readSegment.id == cursorSegment ? cursorOffset : 0;
+    }
+
+    /**
+     * 注册路由使用的限流器和发送方，发送该路由的记录前先获取许可。
+     * 应在 {@link #start} 之前注册，否则重启后先发送的记录只使用 host 级限流器并直接由传输层发送。
+     *
+     * @param route    路由，与 {@link #append(Request, String)} 的 route 相同
+     * @param limiters 限流器
+     * @param sender   发送方，为null时直接由传输层发送
+     */
+    public void registerRoute(String route, RateLimiter[] limiters, JournalSender sender) {
+        routes.put(route, new Route(limiters, sender));
+    }
+
+    /**
+     * 启动后台刷盘和发送线程，不限流
+     *
+     * @param transport 发送请求使用的传输层
+     */
+    public void start(HttpTransport transport) {
+        start(transport, Collections.emptyMap());
+    }
+
+    /**
+     * 启动后台刷盘和发送线程，重复调用无效
+     *
+     * @param transport    发送请求使用的传输层
+     * @param hostLimiters 未注册路由的记录按 host 使用的限流器
+     */
+    public void start(HttpTransport transport, Map<String, RateLimiter> hostLimiters) {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        this.transport = transport;
+        this.hostLimiters = hostLimiters;
+        AtomicInteger index = new AtomicInteger();
+        this.sendPool = Executors.newFixedThreadPool(senders,
+                r -> daemon(r, "easy-http-journal-send-" + index.incrementAndGet()));
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "easy-http-journal-timer"));
+        this.timer.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        this.drainer = daemon(this::drain, "easy-http-journal-drain");
+        this.drainer.start();
+    }
+
+    /**
+     * 追加一个请求，不限流
+     *
+     * @see #append(Request, String)
+     */
+    public void append(Request request) {
+        append(request, null);
+    }
+
+    /**
+     * 追加一个请求，返回时请求已写入内存映射文件
+     *
+     * @param request 请求
+     * @param route   发送时查找限流器的路由，可为null
+     * @throws JournalFullException 等待 blockTimeout 后仍超出磁盘配额
+     */
+    public void append(Request request, String route) {
+        byte[] payload;
+        try {
+            payload = encode(request, route, System.currentTimeMillis());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to encode request " + request.url(), e);
+        }
+        if (payload.length + Segment.HEADER_SIZE > segmentSize) {
+            throw new IllegalArgumentException("Request is larger than journal segment size: " + request.url());
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            if (active.remaining() < payload.length + Segment.HEADER_SIZE) {
+                roll();
+            }
+            active.append(payload);
+            appended.increment();
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 切换到新的段文件，超出配额时等待发送线程释放空间
+     */
+    private void roll() {
+        long nanos = blockTimeoutNanos;
+        while ((long) (segments.size() + 1) * segmentSize > maxBytes) {
+            if (nanos <= 0) {
+                throw new JournalFullException("Journal quota exceeded: " + directory);
+            }
+            try {
+                nanos = notFull.awaitNanos(nanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new JournalFullException("Interrupted while waiting for journal space: " + directory);
+            }
+        }
+        Segment next;
+        try {
+            next = Segment.open(segmentFile(active.id + 1), active.id + 1, segmentSize);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create journal segment in " + directory, e);
+        }
+        active.sealed = true;
+        segments.put(next.id, next);
+        active = next;
+    }
+
+    /**
+     * 将所有已写入的内容刷到磁盘
+     */
+    public void flush() {
+        for (Segment segment : segments.values()) {
+            segment.force();
+        }
+    }
+
+    /**
+     * 停止后台线程并刷盘，未发送的记录在下次启动后继续发送
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (started.get()) {
+            // 不中断发送线程，中断会使正在保存的游标写入失败；closed 和 signalAll 已足够唤醒它
+            sendPool.shutdownNow();
+            timer.shutdownNow();
+            try {
+                drainer.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        // 发送线程已退出时释放所有映射，否则交给GC回收
+        if (!started.get() || !drainer.isAlive()) {
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+        }
+    }
+
+    /**
+     * 发送线程：读取记录交给发送线程池，并把游标推进到第一条未完成的记录之前
+     */
+    private void drain() {
+        try {
+            while (!closed) {
+                boolean read = false;
+                Pending pending;
+                while (inFlight.get() < maxInFlight && (pending = next()) != null) {
+                    window.addLast(pending);
+                    read = true;
+                    if (pending.request == null) {
+                        pending.done = true;
+                    } else {
+                        inFlight.incrementAndGet();
+                        submit(pending);
+                    }
+                }
+                if (!advance() && !read) {
+                    awaitProgress();
+                }
+            }
+        } catch (RejectedExecutionException e) {
+            // 线程池已关闭
+        }
+        // 关闭前保存已处理完的记录的游标
+        advance();
+    }
+
+    /**
+     * 把游标推进到第一条未完成的记录之前，游标保存成功后才移出窗口，失败时下次重试
+     *
+     * @return 是否有记录处理完
+     */
+    private boolean advance() {
+        Pending last = null;
+        int count = 0;
+        for (Pending pending : window) {
+            if (!pending.done) {
+                break;
+            }
+            last = pending;
+            count++;
+        }
+        if (last == null) {
+            return false;
+        }
+        try {
+            commit(last.segmentId, last.endOffset);
+        } catch (IOException e) {
+            // 记录留在窗口中，下次推进时重新保存；重启前仍未保存时这些记录会重复发送
+            cursorFailures.increment();
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            window.pollFirst();
+        }
+        return true;
+    }
+
+    /**
+     * 从读取位置读取下一条记录
+     *
+     * @return 记录，没有新记录时返回null
+     */
+    private Pending next() {
+        while (true) {
+            int limit = readSegment.writePosition;
+            if (readOffset < limit) {
+                byte[] payload = readSegment.read(readOffset);
+                if (payload == null) {
+                    // 记录损坏，跳过该段剩余内容
+                    readOffset = limit;
+                    continue;
+                }
+                readOffset += Segment.HEADER_SIZE + payload.length;
+                Pending pending = new Pending(readSegment.id, readOffset);
+                try {
+                    decode(payload, pending);
+                } catch (IOException | RuntimeException e) {
+                    pending.request = null;
+                    dropped.increment();
+                }
+                return pending;
+            }
+            if (!readSegment.sealed) {
+                return null;
+            }
+            Map.Entry<Long, Segment> next = segments.higherEntry(readSegment.id);
+            if (next == null) {
+                return null;
+            }
+            readSegment = next.getValue();
+            readOffset = 0;
+        }
+    }
+
+    /**
+     * 没有可读的记录且没有记录处理完时等待
+     */
+    private void awaitProgress() {
+        lock.lock();
+        try {
+            Pending head = window.peekFirst();
+            boolean readable = readOffset < readSegment.writePosition
+                    || readSegment.sealed && segments.higherKey(readSegment.id) != null;
+            if (!closed && (head == null || !head.done) && (!readable || inFlight.get() >= maxInFlight)) {
+                notEmpty.await(100, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取限流许可后在发送线程池中发送
+     */
+    private void submit(Pending pending) {
+        RateLimiter[] limiters = limiters(pending);
+        RateLimitPermit permit = limiters.length == 0 ? null
+                : RateLimitPermit.reserve(limiters, RateLimit.Mode.BLOCK, 0, null);
+        Runnable task = () -> attempt(pending, permit);
+        if (permit == null || permit.getWaitNanos() <= 0) {
+            sendPool.execute(task);
+        } else {
+            timer.schedule(() -> sendPool.execute(task), permit.getWaitNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private RateLimiter[] limiters(Pending pending) {
+        Route route = pending.route == null ? null : routes.get(pending.route);
+        if (route != null) {
+            return route.limiters;
+        }
+        RateLimiter host = hostLimiters.get(pending.request.url().host());
+        return host == null ? NO_LIMITERS : new RateLimiter[]{host};
+    }
+
+    /**
+     * 发送一次，网络错误、5xx、408 和 429 时退避后重试，其它 4xx 或超出重试上限时转为死信
+     */
+    private void attempt(Pending pending, RateLimitPermit permit) {
+        if (closed) {
+            return;
+        }
+        pending.attempts++;
+        int code = -1;
+        Throwable cause = null;
+        Route route = pending.route == null ? null : routes.get(pending.route);
+        JournalSender sender = route == null || route.sender == null ? this::sendDirect : route.sender;
+        Request request = permit == null ? pending.request
+                : pending.request.newBuilder().tag(RateLimitPermit.class, permit).build();
+        try {
+            code = sender.send(request);
+            if (code >= 200 && code < 300) {
+                finish(pending);
+                delivered.increment();
+                return;
+            }
+            if (code < 500 && code != 408 && code != 429) {
+                deadLetter(pending, code, null);
+                return;
+            }
+        } catch (IOException | RuntimeException e) {
+            cause = e;
+        }
+        if (closed) {
+            return;
+        }
+        if (pending.attempts >= maxAttempts || System.currentTimeMillis() - pending.appendedAt >= maxAge) {
+            deadLetter(pending, code, cause);
+            return;
+        }
+        retries.increment();
+        long backoff = Math.min(maxBackoff, 100L << Math.min(pending.attempts - 1, 20));
+        try {
+            timer.schedule(() -> {
+                try {
+                    submit(pending);
+                } catch (RejectedExecutionException e) {
+                    // 已关闭，下次启动后重新发送
+                }
+            }, backoff, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 已关闭，下次启动后重新发送
+        }
+    }
+
+    /**
+     * 未注册发送方的路由直接由传输层发送，不经过调度、超时和追踪
+     */
+    private int sendDirect(Request request) throws IOException {
+        try (Response response = transport.execute(request)) {
+            RateLimitPermit permit = request.tag(RateLimitPermit.class);
+            if (permit != null) {
+                permit.onResponse(response);
+            }
+            return response.code();
+        }
+    }
+
+    private void deadLetter(Pending pending, int code, Throwable cause) {
+        if (deadLetterHandler != null) {
+            try {
+                deadLetterHandler.onDeadLetter(pending.request, code, cause);
+            } catch (RuntimeException e) {
+                // 忽略
+            }
+        }
+        finish(pending);
+        deadLettered.increment();
+    }
+
+    /**
+     * 标记记录已处理完并唤醒发送线程推进游标
+     */
+    private void finish(Pending pending) {
+        pending.request = null;
+        pending.done = true;
+        inFlight.decrementAndGet();
+        lock.lock();
+        try {
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 保存游标并删除已发送完的段，删除失败的段仍计入配额，下次推进游标时重试
+     */
+    private void commit(long segmentId, int offset) throws IOException {
+        Path tmp = directory.resolve(CURSOR_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(ByteBuffer.allocate(12).putLong(segmentId).putInt(offset).array()));
+            channel.force(true);
+        }
+        Files.move(tmp, directory.resolve(CURSOR_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+
+        boolean freed = false;
+        for (Segment segment : new ArrayList<>(segments.headMap(segmentId).values())) {
+            try {
+                segment.delete();
+                segments.remove(segment.id);
+                freed = true;
+            } catch (IOException e) {
+                deleteFailures.increment();
+            }
+        }
+        if (!freed) {
+            return;
+        }
+        lock.lock();
+        try {
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Path segmentFile(long id) {
+        return directory.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX));
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * 记录格式：[路由][写入时间][方法][URL][请求头][请求体]
+     */
+    private static byte[] encode(Request request, String route, long appendedAt) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, route == null ? "" : route);
+        out.writeLong(appendedAt);
+        writeString(out, request.method());
+        writeString(out, request.url().toString());
+        Headers headers = request.headers();
+        out.writeInt(headers.size());
+        for (int i = 0, n = headers.size(); i < n; i++) {
+            writeString(out, headers.name(i));
+            writeString(out, headers.value(i));
+        }
+        RequestBody body = request.body();
+        out.writeBoolean(body != null);
+        if (body != null) {
+            MediaType contentType = body.contentType();
+            writeString(out, contentType == null ? "" : contentType.toString());
+            Buffer buffer = new Buffer();
+            body.writeTo(buffer);
+            out.writeInt((int) buffer.size());
+            buffer.copyTo(out, 0, buffer.size());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void decode(byte[] payload, Pending pending) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        String route = readString(in);
+        pending.route = route.isEmpty() ? null : route;
+        pending.appendedAt = in.readLong();
+        String method = readString(in);
+        Request.Builder builder = new Request.Builder().url(readString(in));
+        Headers.Builder headers = new Headers.Builder();
+        for (int i = in.readInt(); i > 0; i--) {
+            headers.addUnsafeNonAscii(readString(in), readString(in));
+        }
+        RequestBody body = null;
+        if (in.readBoolean()) {
+            String contentType = readString(in);
+            byte[] content = new byte[in.readInt()];
+            in.readFully(content);
+            body = RequestBody.create(content, contentType.isEmpty() ? null : MediaType.parse(contentType));
+        }
+        pending.request = builder.headers(headers.build()).method(method, body).build();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public long getAppended() {
+        return appended.sum();
+    }
+
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * @return 无法解码而跳过的记录数
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return 被拒绝或超出重试上限、交给 {@link DeadLetterHandler} 的记录数
+     */
+    public long getDeadLettered() {
+        return deadLettered.sum();
+    }
+
+    /**
+     * @return 删除已发送完的段文件失败的次数
+     */
+    public long getDeleteFailures() {
+        return deleteFailures.sum();
+    }
+
+    /**
+     * @return 保存游标失败的次数
+     */
+    public long getCursorFailures() {
+        return cursorFailures.sum();
+    }
+
+    private static final class Route {
+        private final RateLimiter[] limiters;
+        private final JournalSender sender;
+
+        Route(RateLimiter[] limiters, JournalSender sender) {
+            this.limiters = limiters;
+            this.sender = sender;
+        }
+    }
+
+    /**
+     * 已读取待确认的记录
+     */
+    private static final class Pending {
+        private final long segmentId;
+        private final int endOffset;
+        /**
+         * 无法解码或已处理完时为null
+         */
+        private volatile Request request;
+        private String route;
+        private long appendedAt;
+        /**
+         * 已发送次数，同一时间只有一个线程访问
+         */
+        private int attempts;
+        private volatile boolean done;
+
+        Pending(long segmentId, int endOffset) {
+            this.segmentId = segmentId;
+            this.endOffset = endOffset;
+        }
+    }
+
+    public static class Builder {
+        private final Path directory;
+        private int segmentSize = 16 * 1024 * 1024;      // 默认 16MB
+        private long maxBytes = 256L * 1024 * 1024;     // 默认 256MB
+        private long blockTimeout = 1000;               // 默认 1 秒
+        private long flushInterval = 10;                // 默认 10 毫秒
+        private int maxInFlight = 64;
+        private int senders = 4;
+        private long maxBackoff = 30000;                // 默认 30 秒
+        private int maxAttempts = 20;
+        private long maxAge = TimeUnit.DAYS.toMillis(1); // 默认 1 天
+        private DeadLetterHandler deadLetterHandler;
+
+        private Builder(Path directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * 段文件大小，单条记录不能超过该大小
+         */
+        public Builder segmentSize(int bytes) { this.segmentSize = bytes; return this; }
+
+        /**
+         * 所有段文件的总大小上限，至少为两个段
+         */
+        public Builder maxBytes(long bytes) { this.maxBytes = bytes; return this; }
+
+        /**
+         * 超出配额时调用方最长等待毫秒数，0 表示立即失败
+         */
+        public Builder blockTimeout(long millis) { this.blockTimeout = millis; return this; }
+
+        /**
+         * 批量刷盘的间隔毫秒数
+         */
+        public Builder flushInterval(long millis) { this.flushInterval = millis; return this; }
+
+        /**
+         * 同时发送或等待重试的最大记录数
+         */
+        public Builder maxInFlight(int maxInFlight) { this.maxInFlight = maxInFlight; return this; }
+
+        /**
+         * 并发发送的线程数
+         */
+        public Builder senders(int senders) { this.senders = senders; return this; }
+
+        /**
+         * 重试退避的最大毫秒数
+         */
+        public Builder maxBackoff(long millis) { this.maxBackoff = millis; return this; }
+
+        /**
+         * 每条记录最多发送的次数，重启后重新计数
+         */
+        public Builder maxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; return this; }
+
+        /**
+         * 记录写入后最多重试的毫秒数，按写入时的系统时间计算，重启后仍然有效
+         */
+        public Builder maxAge(long millis) { this.maxAge = millis; return this; }
+
+        /**
+         * 被拒绝或超出重试上限的记录的处理方式，默认只计数
+         */
+        public Builder deadLetterHandler(DeadLetterHandler handler) { this.deadLetterHandler = handler; return this; }
+
+        public Journal build() {
+            if (segmentSize <= Segment.HEADER_SIZE || maxBytes < 2L * segmentSize) {
+                throw new IllegalArgumentException("maxBytes must hold at least two segments");
+            }
+            if (maxInFlight < 1 || senders < 1 || flushInterval <= 0) {
+                throw new IllegalArgumentException("maxInFlight, senders and flushInterval must be positive");
+            }
+            if (maxAttempts < 1 || maxAge <= 0) {
+                throw new IllegalArgumentException("maxAttempts and maxAge must be positive");
+            }
+            try {
+                return new Journal(this);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to open journal " + directory, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.cy.easyhttp.journal;
+
+/**
+ * 日志占用达到磁盘配额，且在等待时间内没有释放出空间
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public class JournalFullException extends RuntimeException {
+
+    public JournalFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,24 @@
+package com.cy.easyhttp.journal;
+
+import okhttp3.Request;
+
+import java.io.IOException;
+
+/**
+ * 发送一条日志记录，代理为每个 @FireAndForget 方法注册一个，经过与同步调用相同的调度、超时和追踪
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+@FunctionalInterface
+public interface JournalSender {
+
+    /**
+     * 发送一次并丢弃响应体
+     *
+     * @param request 请求，带有限流许可时以 RateLimitPermit 为tag
+     * @return 响应状态码
+     * @throws IOException 网络错误
+     */
+    int send(Request request) throws IOException;
+}
@@ -0,0 +1,173 @@
+package com.cy.easyhttp.journal;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * 内存映射的日志段文件
+ * <p>
+ * 记录格式为 [长度(int)][CRC32(int)][内容]，文件末尾未写入的部分全为0。
+ * 写入方在记录完整写入后才更新 writePosition，读取方只读取 writePosition 之前的内容。
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+final class Segment {
+
+    static final int HEADER_SIZE = 8;
+
+    final long id;
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    /**
+     * 写入方使用的视图，只在持有 Journal 锁时访问
+     */
+    private final ByteBuffer writeBuffer;
+    /**
+     * 读取方使用的视图，只在发送线程中访问
+     */
+    private final ByteBuffer readBuffer;
+    volatile int writePosition;
+    /**
+     * 已写满，不会再追加记录
+     */
+    volatile boolean sealed;
+    private volatile boolean dirty;
+    /**
+     * 映射已释放，之后不能再访问 buffer
+     */
+    private boolean released;
+
+    private Segment(long id, Path file, MappedByteBuffer buffer) {
+        this.id = id;
+        this.file = file;
+        this.buffer = buffer;
+        this.writeBuffer = buffer.duplicate();
+        this.readBuffer = buffer.duplicate();
+    }
+
+    /**
+     * 打开或创建段文件，已有内容时扫描到最后一条完整的记录
+     */
+    static Segment open(Path file, long id, int size) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+        }
+        Segment segment = new Segment(id, file, buffer);
+        int position = 0;
+        byte[] payload;
+        while ((payload = segment.read(position)) != null) {
+            position += HEADER_SIZE + payload.length;
+        }
+        segment.writePosition = position;
+        return segment;
+    }
+
+    int remaining() {
+        return buffer.capacity() - writePosition;
+    }
+
+    /**
+     * 追加一条记录，调用方保证空间足够
+     */
+    void append(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        ((Buffer) writeBuffer).position(writePosition);
+        writeBuffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        dirty = true;
+        writePosition += HEADER_SIZE + payload.length;
+    }
+
+    /**
+     * 读取指定位置的记录
+     *
+     * @return 记录内容，没有完整有效的记录时返回null
+     */
+    byte[] read(int offset) {
+        if (offset + HEADER_SIZE > readBuffer.capacity()) {
+            return null;
+        }
+        int length = readBuffer.getInt(offset);
+        if (length <= 0 || length > readBuffer.capacity() - offset - HEADER_SIZE) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        ((Buffer) readBuffer).position(offset + HEADER_SIZE);
+        readBuffer.get(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, length);
+        return (int) crc.getValue() == readBuffer.getInt(offset + 4) ? payload : null;
+    }
+
+    /**
+     * 将已写入的内容刷到磁盘，与释放映射互斥
+     */
+    synchronized void force() {
+        if (dirty && !released) {
+            dirty = false;
+            buffer.force();
+        }
+    }
+
+    /**
+     * 刷盘后释放内存映射，调用方保证之后不再读写该段
+     */
+    synchronized void close() {
+        if (released) {
+            return;
+        }
+        if (dirty) {
+            dirty = false;
+            buffer.force();
+        }
+        released = true;
+        unmap(buffer);
+    }
+
+    /**
+     * 释放映射后删除文件
+     */
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * 立即释放映射，不等待GC；当前JDK不支持时交给GC回收
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            // Java 9+
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            invokeCleaner.invoke(field.get(null), buffer);
+            return;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // 继续尝试 Java 8 的方式
+        }
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // 交给GC回收
+        }
+    }
+}
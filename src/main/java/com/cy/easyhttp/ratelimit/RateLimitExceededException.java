@@ -0,0 +1,14 @@
+package com.cy.easyhttp.ratelimit;
+
+/**
+ * 在允许的等待时间内无法获得限流许可
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    public RateLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,177 @@
+package com.cy.easyhttp.ratelimit;
+
+import com.cy.easyhttp.annotation.method.RateLimit;
+import com.cy.easyhttp.deadline.Deadline;
+import okhttp3.Response;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次调用获得的限流许可，作为请求的tag传给 HttpUtil，用于根据响应调整限流器
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public final class RateLimitPermit {
+
+    private final RateLimiter[] limiters;
+    /**
+     * 发送前需要等待的纳秒数
+     */
+    private final long waitNanos;
+
+    private RateLimitPermit(RateLimiter[] limiters, long waitNanos) {
+        this.limiters = limiters;
+        this.waitNanos = waitNanos;
+    }
+
+    /**
+     * 从所有限流器预约许可，任一限流器无法在允许的时间内给出许可时失败
+     *
+     * @param limiters      限流器
+     * @param mode          获取方式
+     * @param timeoutMillis TIMED 模式的最长等待毫秒数
+     * @param deadline      调用截止时间，可为null
+     * @return 许可，需要等待 {@link #getWaitNanos()} 后再发送
+     */
+    public static RateLimitPermit reserve(RateLimiter[] limiters, RateLimit.Mode mode, long timeoutMillis,
+                                          Deadline deadline) {
+        long maxWait = mode == RateLimit.Mode.FAIL_FAST ? 0
+                : mode == RateLimit.Mode.TIMED ? TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : Long.MAX_VALUE;
+        // 不等待超过调用方的截止时间
+        if (deadline != null) {
+            maxWait = Math.min(maxWait, Math.max(0, deadline.remainingNanos()));
+        }
+        long wait = 0;
+        for (int i = 0; i < limiters.length; i++) {
+            long w = limiters[i].reserve(maxWait);
+            if (w < 0) {
+                for (int j = 0; j < i; j++) {
+                    limiters[j].cancel();
+                }
+                throw new RateLimitExceededException("Rate limit exceeded: " + limiters[i].getName());
+            }
+            wait = Math.max(wait, w);
+        }
+        return new RateLimitPermit(limiters, wait);
+    }
+
+    /**
+     * 阻塞等待到许可可用
+     */
+    public void await() {
+        if (waitNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RateLimitExceededException("Interrupted while waiting for rate limit permit");
+        }
+    }
+
+    /**
+     * 返回在许可可用后才执行任务的 Executor，用于异步方法不占用线程等待
+     *
+     * @param executor 实际执行任务的线程池
+     * @return 延迟执行的 Executor
+     */
+    public Executor delayed(Executor executor) {
+        if (waitNanos <= 0) {
+            return executor;
+        }
+        return task -> Scheduler.INSTANCE.schedule(() -> executor.execute(task), waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 根据响应调整限流器：429 + Retry-After，或 RateLimit-Remaining 为 0 时按 RateLimit-Reset 暂停
+     *
+     * @param response 响应
+     */
+    public void onResponse(Response response) {
+        long delayNanos = -1;
+        if (response.code() == 429) {
+            delayNanos = parseRetryAfter(response.header("Retry-After"));
+        }
+        if (delayNanos < 0 && "0".equals(header(response, "RateLimit-Remaining"))) {
+            delayNanos = parseReset(header(response, "RateLimit-Reset"));
+        }
+        if (delayNanos < 0 && response.code() == 429) {
+            // 没有给出等待时间时至少暂停一秒
+            delayNanos = TimeUnit.SECONDS.toNanos(1);
+        }
+        if (delayNanos >= 0) {
+            long until = System.nanoTime() + delayNanos;
+            for (RateLimiter limiter : limiters) {
+                limiter.pauseUntil(until);
+            }
+        }
+    }
+
+    public long getWaitNanos() {
+        return waitNanos;
+    }
+
+    private static String header(Response response, String name) {
+        String value = response.header(name);
+        return value != null ? value : response.header("X-" + name);
+    }
+
+    /**
+     * Retry-After 可以是秒数，也可以是HTTP日期
+     */
+    private static long parseRetryAfter(String value) {
+        long seconds = parseSeconds(value);
+        if (seconds >= 0 || value == null) {
+            return seconds;
+        }
+        try {
+            SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+            long millis = format.parse(value.trim()).getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+        } catch (ParseException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * RateLimit-Reset 一般是剩余秒数，部分服务(如 X-RateLimit-Reset)使用 epoch 秒
+     */
+    private static long parseReset(String value) {
+        long nanos = parseSeconds(value);
+        long epochNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        if (nanos > epochNanos / 2) {
+            return Math.max(0, nanos - epochNanos);
+        }
+        return nanos;
+    }
+
+    private static long parseSeconds(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return TimeUnit.MILLISECONDS.toNanos((long) (Double.parseDouble(value.trim()) * 1000));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 异步延迟执行的调度线程，首次使用时才创建
+     */
+    private static class Scheduler {
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "easy-http-rate-limit");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
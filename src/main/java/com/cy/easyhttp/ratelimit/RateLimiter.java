@@ -0,0 +1,101 @@
+package com.cy.easyhttp.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶限流器(GCRA 算法)
+ * <p>
+ * 只维护一个"理论到达时间"，获取许可就是一次CAS，等待时间由调用方决定如何等待(阻塞或异步延迟)。
+ * 收到 429/Retry-After 等响应时可以通过 {@link #pauseUntil(long)} 暂停发放许可。
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public class RateLimiter {
+
+    private final String name;
+    /**
+     * 每个许可的间隔纳秒数
+     */
+    private final long intervalNanos;
+    /**
+     * 突发容量对应的纳秒数
+     */
+    private final long burstNanos;
+    /**
+     * 理论到达时间，System.nanoTime() 基准
+     */
+    private final AtomicLong tat;
+
+    public RateLimiter(String name, double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("permitsPerSecond and burst must be positive");
+        }
+        this.name = name;
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.tat = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * 预约一个许可
+     *
+     * @param maxWaitNanos 最多可接受的等待纳秒数
+     * @return 需要等待的纳秒数(0 表示立即可用)；超过 maxWaitNanos 时返回 -1 且不占用许可
+     */
+    public long reserve(long maxWaitNanos) {
+        while (true) {
+            long now = System.nanoTime();
+            long current = tat.get();
+            long next = (current - now > 0 ? current : now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > maxWaitNanos) {
+                return -1;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return Math.max(0, wait);
+            }
+        }
+    }
+
+    /**
+     * 立即获取许可
+     *
+     * @return 是否获取成功
+     */
+    public boolean tryAcquire() {
+        return reserve(0) == 0;
+    }
+
+    /**
+     * 归还一个已预约但未使用的许可
+     */
+    public void cancel() {
+        tat.addAndGet(-intervalNanos);
+    }
+
+    /**
+     * 在指定时间之前不再发放许可，之后按速率逐个恢复，避免瞬间涌入
+     *
+     * @param untilNanos System.nanoTime() 基准的时间
+     */
+    public void pauseUntil(long untilNanos) {
+        long target = untilNanos + burstNanos - intervalNanos;
+        while (true) {
+            long current = tat.get();
+            if (current - target >= 0 || tat.compareAndSet(current, target)) {
+                return;
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimiter[" + name + "]";
+    }
+}
@@ -0,0 +1,234 @@
+package com.cy.easyhttp.schedule;
+
+import com.cy.easyhttp.deadline.Deadline;
+import com.cy.easyhttp.deadline.DeadlineExceededException;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按优先级调度的并发限制
+ * <p>
+ * 并发请求数达到上限后，新请求按优先级进入不同的队列；有空位时按权重轮询(平滑加权轮询)选择队列，
+ * 高优先级获得更多的份额，低优先级也不会完全得不到调度。队首等待超过 starvationTimeout 的请求优先放行，
+ * 避免后台请求在持续的高优先级流量下饿死。
+ * <p>
+ * 许可从发送请求占用到响应处理完成；返回 InputStream/Source 的方法一直占用到流关闭。
+ * 持有许可的线程再次通过客户端发请求时(如 okhttp 拦截器中刷新令牌)在外层许可下执行，不再排队；
+ * 但同一线程持有未关闭的流时再次调用仍会排队，流的数量达到 maxConcurrent 时会等待自己。
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public class PriorityScheduler {
+
+    private final int maxConcurrent;
+    private final int[] weights;
+    private final long starvationNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<Waiter>[] queues = new ArrayDeque[RequestPriority.values().length];
+    /**
+     * 平滑加权轮询的当前权重
+     */
+    private final int[] current = new int[RequestPriority.values().length];
+    private int inFlight;
+    private int queued;
+
+    private PriorityScheduler(Builder builder) {
+        this.maxConcurrent = builder.maxConcurrent;
+        this.weights = builder.weights.clone();
+        this.starvationNanos = TimeUnit.MILLISECONDS.toNanos(builder.starvationTimeout);
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ArrayDeque<>();
+        }
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * 获取执行许可，并发已满时按优先级排队等待，最长等待到当前截止时间
+     *
+     * @param priority 优先级
+     * @param deadline 截止时间，可为null
+     */
+    public void acquire(RequestPriority priority, Deadline deadline) {
+        lock.lock();
+        try {
+            if (inFlight < maxConcurrent && queued == 0) {
+                inFlight++;
+                return;
+            }
+            Waiter waiter = new Waiter(System.nanoTime(), lock.newCondition());
+            queues[priority.ordinal()].addLast(waiter);
+            queued++;
+            try {
+                while (!waiter.granted) {
+                    if (deadline == null) {
+                        waiter.condition.await();
+                    } else {
+                        long remaining = deadline.remainingNanos();
+                        if (remaining <= 0) {
+                            throw new DeadlineExceededException("Deadline exceeded while queued with priority " + priority);
+                        }
+                        waiter.condition.awaitNanos(remaining);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (!waiter.granted) {
+                    abandon(priority, waiter);
+                    throw new RuntimeException("Interrupted while queued with priority " + priority, e);
+                }
+            } catch (RuntimeException e) {
+                if (!waiter.granted) {
+                    abandon(priority, waiter);
+                    throw e;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 归还执行许可，并唤醒下一个排队的请求
+     */
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            while (inFlight < maxConcurrent && queued > 0) {
+                Waiter waiter = next();
+                waiter.granted = true;
+                inFlight++;
+                waiter.condition.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 正在执行的请求数
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 指定优先级排队的请求数
+     */
+    public int getQueued(RequestPriority priority) {
+        lock.lock();
+        try {
+            return queues[priority.ordinal()].size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void abandon(RequestPriority priority, Waiter waiter) {
+        if (queues[priority.ordinal()].remove(waiter)) {
+            queued--;
+        }
+    }
+
+    /**
+     * 选择下一个放行的请求，调用方持有锁且保证有排队的请求
+     */
+    private Waiter next() {
+        // 等待过久的队首请求优先放行
+        long now = System.nanoTime();
+        int oldest = -1;
+        for (int i = 0; i < queues.length; i++) {
+            Waiter head = queues[i].peekFirst();
+            if (head != null && now - head.enqueuedAt >= starvationNanos
+                    && (oldest < 0 || head.enqueuedAt - queues[oldest].peekFirst().enqueuedAt < 0)) {
+                oldest = i;
+            }
+        }
+        if (oldest >= 0) {
+            queued--;
+            return queues[oldest].pollFirst();
+        }
+
+        // 平滑加权轮询：非空队列累加权重，选择当前权重最大的队列，再减去总权重
+        int total = 0;
+        int selected = -1;
+        for (int i = 0; i < queues.length; i++) {
+            if (queues[i].isEmpty()) {
+                continue;
+            }
+            current[i] += weights[i];
+            total += weights[i];
+            if (selected < 0 || current[i] > current[selected]) {
+                selected = i;
+            }
+        }
+        current[selected] -= total;
+        queued--;
+        return queues[selected].pollFirst();
+    }
+
+    private static final class Waiter {
+        private final long enqueuedAt;
+        private final Condition condition;
+        private boolean granted;
+
+        Waiter(long enqueuedAt, Condition condition) {
+            this.enqueuedAt = enqueuedAt;
+            this.condition = condition;
+        }
+    }
+
+    public static class Builder {
+        private int maxConcurrent = 64;
+        private final int[] weights = {8, 4, 1};   // HIGH, NORMAL, LOW
+        private long starvationTimeout = 2000;     // 默认 2 秒
+
+        private Builder() {
+        }
+
+        /**
+         * 最大并发请求数
+         */
+        public Builder maxConcurrent(int maxConcurrent) {
+            if (maxConcurrent < 1) {
+                throw new IllegalArgumentException("maxConcurrent must be positive");
+            }
+            this.maxConcurrent = maxConcurrent;
+            return this;
+        }
+
+        /**
+         * 设置某个优先级的调度权重
+         */
+        public Builder weight(RequestPriority priority, int weight) {
+            if (weight < 1) {
+                throw new IllegalArgumentException("weight must be positive");
+            }
+            this.weights[priority.ordinal()] = weight;
+            return this;
+        }
+
+        /**
+         * 排队超过该毫秒数的请求不再按权重，直接优先放行
+         */
+        public Builder starvationTimeout(long millis) { this.starvationTimeout = millis; return this; }
+
+        public PriorityScheduler build() {
+            return new PriorityScheduler(this);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.cy.easyhttp.schedule;
+
+/**
+ * 请求优先级
+ * <p>
+ * 默认取方法或接口上的 {@link com.cy.easyhttp.annotation.method.Priority}，
+ * 调用方可以通过 {@link #attach()} 临时覆盖当前线程发出的请求的优先级：
+ * <pre>
+ * try (RequestPriority.Scope ignored = RequestPriority.LOW.attach()) {
+ *     syncService.pull();
+ * }
+ * </pre>
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public enum RequestPriority {
+    /**
+     * 面向用户、对延迟敏感的请求
+     */
+    HIGH,
+    NORMAL,
+    /**
+     * 后台批量请求
+     */
+    LOW;
+
+    private static final ThreadLocal<RequestPriority> CURRENT = new ThreadLocal<>();
+
+    /**
+     * @return 当前线程覆盖的优先级，没有时返回null
+     */
+    public static RequestPriority current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 设置为当前线程的优先级
+     *
+     * @return 关闭时恢复之前的优先级
+     */
+    public Scope attach() {
+        RequestPriority previous = CURRENT.get();
+        CURRENT.set(this);
+        return new Scope(previous);
+    }
+
+    /**
+     * 优先级作用域
+     */
+    public static final class Scope implements AutoCloseable {
+        private final RequestPriority previous;
+
+        private Scope(RequestPriority previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
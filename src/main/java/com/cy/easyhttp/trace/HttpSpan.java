@@ -0,0 +1,61 @@
+package com.cy.easyhttp.trace;
+
+/**
+ * 一次接口调用对应的span
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public interface HttpSpan {
+
+    /**
+     * 调用阶段
+     */
+    enum Phase {
+        /**
+         * 参数绑定：展开URL、构建请求头和请求体
+         */
+        BINDING,
+        /**
+         * 网络：发送请求到收到响应头
+         */
+        NETWORK,
+        /**
+         * 解码：读取响应体并反序列化
+         */
+        DECODING
+    }
+
+    /**
+     * @return 传播给下游的上下文
+     */
+    TraceContext context();
+
+    /**
+     * 记录阶段耗时
+     *
+     * @param phase      阶段
+     * @param startNanos 开始时间 System.nanoTime()
+     * @param endNanos   结束时间 System.nanoTime()
+     */
+    void onPhase(Phase phase, long startNanos, long endNanos);
+
+    /**
+     * 收到响应状态码
+     */
+    default void onStatus(int code) {
+    }
+
+    /**
+     * 响应体字节数，未知时为-1
+     */
+    default void onResponseSize(long bytes) {
+    }
+
+    /**
+     * 结束span
+     *
+     * @param error 异常，成功时为null
+     */
+    void end(Throwable error);
+}
@@ -0,0 +1,21 @@
+package com.cy.easyhttp.trace;
+
+import com.cy.easyhttp.MethodMetadata;
+
+/**
+ * 链路追踪SPI，可桥接 OpenTelemetry 等实现，不引入额外依赖
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public interface HttpTracer {
+
+    /**
+     * 开始一次调用的span
+     *
+     * @param metadata 接口方法执行计划
+     * @param parent   当前线程的上下文，可能为null
+     * @return span，其上下文会被注入到请求头
+     */
+    HttpSpan startSpan(MethodMetadata metadata, TraceContext parent);
+}
@@ -0,0 +1,181 @@
+package com.cy.easyhttp.trace;
+
+import okhttp3.Headers;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * W3C Trace Context(traceparent/tracestate)
+ * <p>
+ * 当前上下文保存在 ThreadLocal 中，平台线程和虚拟线程都适用；异步方法会把调用线程的上下文带到异步线程上。
+ * 服务端收到请求后可以用 {@link #parse(String, String)} 解析上游上下文并 {@link #attach()}，后续通过客户端发出的请求会自动成为其子调用。
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public final class TraceContext {
+
+    public static final String TRACEPARENT = "traceparent";
+    public static final String TRACESTATE = "tracestate";
+
+    private static final ThreadLocal<TraceContext> CURRENT = new ThreadLocal<>();
+
+    private final String traceId;
+    private final String spanId;
+    private final boolean sampled;
+    private final String traceState;
+
+    public TraceContext(String traceId, String spanId, boolean sampled, String traceState) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.sampled = sampled;
+        this.traceState = traceState;
+    }
+
+    /**
+     * @return 当前线程的上下文，没有时返回null
+     */
+    public static TraceContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 创建新的根上下文
+     */
+    public static TraceContext newRoot() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new TraceContext(hex(random.nextLong()) + hex(random.nextLong()), newSpanId(), true, null);
+    }
+
+    /**
+     * 创建子上下文，沿用 traceId 和 tracestate
+     */
+    public TraceContext newChild() {
+        return new TraceContext(traceId, newSpanId(), sampled, traceState);
+    }
+
+    /**
+     * 解析 traceparent/tracestate 请求头
+     *
+     * @param traceparent 如 00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01
+     * @param tracestate  可为空
+     * @return 上下文，格式不合法时返回null
+     */
+    public static TraceContext parse(String traceparent, String tracestate) {
+        if (traceparent == null || traceparent.length() < 55) {
+            return null;
+        }
+        String[] parts = traceparent.trim().split("-");
+        if (parts.length < 4 || parts[1].length() != 32 || parts[2].length() != 16 || parts[3].length() != 2) {
+            return null;
+        }
+        boolean sampled;
+        try {
+            sampled = (Integer.parseInt(parts[3], 16) & 1) == 1;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return new TraceContext(parts[1], parts[2], sampled, tracestate == null || tracestate.isEmpty() ? null : tracestate);
+    }
+
+    /**
+     * 设置为当前线程的上下文
+     *
+     * @return 关闭时恢复之前的上下文
+     */
+    public Scope attach() {
+        TraceContext previous = CURRENT.get();
+        CURRENT.set(this);
+        return new Scope(previous);
+    }
+
+    /**
+     * 包装任务，使其在执行时使用当前线程的上下文
+     *
+     * @param runnable 任务
+     * @return 包装后的任务，当前没有上下文时原样返回
+     */
+    public static Runnable wrap(Runnable runnable) {
+        TraceContext context = current();
+        if (context == null) {
+            return runnable;
+        }
+        return () -> {
+            try (Scope ignored = context.attach()) {
+                runnable.run();
+            }
+        };
+    }
+
+    /**
+     * 写入 traceparent/tracestate 请求头
+     */
+    public Headers inject(Headers headers) {
+        Headers.Builder builder = headers.newBuilder().set(TRACEPARENT, traceparent());
+        if (traceState != null) {
+            builder.set(TRACESTATE, traceState);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return traceparent 请求头的值
+     */
+    public String traceparent() {
+        return "00-" + traceId + "-" + spanId + (sampled ? "-01" : "-00");
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    public String getTraceState() {
+        return traceState;
+    }
+
+    @Override
+    public String toString() {
+        return traceparent();
+    }
+
+    private static String newSpanId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+        return hex(id);
+    }
+
+    private static String hex(long value) {
+        String hex = Long.toHexString(value);
+        return hex.length() == 16 ? hex : "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    /**
+     * 上下文作用域
+     */
+    public static final class Scope implements AutoCloseable {
+        private final TraceContext previous;
+
+        private Scope(TraceContext previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.cy.easyhttp.trace;
+
+import com.cy.easyhttp.MethodMetadata;
+
+import java.util.function.Consumer;
+
+/**
+ * 内置追踪实现：传播W3C上下文，记录各阶段耗时并交给reporter处理
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public class W3cHttpTracer implements HttpTracer {
+
+    private final Consumer<Span> reporter;
+
+    public W3cHttpTracer() {
+        this(null);
+    }
+
+    /**
+     * @param reporter span结束时回调，可为null；抛出的异常会被忽略
+     */
+    public W3cHttpTracer(Consumer<Span> reporter) {
+        this.reporter = reporter;
+    }
+
+    @Override
+    public HttpSpan startSpan(MethodMetadata metadata, TraceContext parent) {
+        TraceContext context = parent == null ? TraceContext.newRoot() : parent.newChild();
+        return new Span(metadata, context, parent, reporter);
+    }
+
+    /**
+     * 一次调用的耗时记录
+     */
+    public static class Span implements HttpSpan {
+        private final MethodMetadata metadata;
+        private final TraceContext context;
+        private final TraceContext parent;
+        private final Consumer<Span> reporter;
+        private final long startNanos = System.nanoTime();
+        private long bindingNanos;
+        private long networkNanos;
+        private long decodingNanos;
+        private long durationNanos;
+        private int status;
+        private Throwable error;
+
+        Span(MethodMetadata metadata, TraceContext context, TraceContext parent, Consumer<Span> reporter) {
+            this.metadata = metadata;
+            this.context = context;
+            this.parent = parent;
+            this.reporter = reporter;
+        }
+
+        @Override
+        public TraceContext context() {
+            return context;
+        }
+
+        @Override
+        public void onPhase(Phase phase, long startNanos, long endNanos) {
+            switch (phase) {
+                case BINDING:
+                    bindingNanos = endNanos - startNanos;
+                    break;
+                case NETWORK:
+                    networkNanos = endNanos - startNanos;
+                    break;
+                case DECODING:
+                    decodingNanos = endNanos - startNanos;
+                    break;
+                default:
+            }
+        }
+
+        @Override
+        public void onStatus(int code) {
+            this.status = code;
+        }
+
+        @Override
+        public void end(Throwable error) {
+            this.durationNanos = System.nanoTime() - startNanos;
+            this.error = error;
+            if (reporter != null) {
+                try {
+                    reporter.accept(this);
+                } catch (RuntimeException ignored) {
+                    // reporter 失败不影响业务调用
+                }
+            }
+        }
+
+        public MethodMetadata getMetadata() { return metadata; }
+
+        public TraceContext getParent() { return parent; }
+
+        public long getBindingNanos() { return bindingNanos; }
+
+        public long getNetworkNanos() { return networkNanos; }
+
+        public long getDecodingNanos() { return decodingNanos; }
+
+        public long getDurationNanos() { return durationNanos; }
+
+        public int getStatus() { return status; }
+
+        public Throwable getError() { return error; }
+
+        @Override
+        public String toString() {
+            return metadata.getHttpMethod() + " " + metadata.getMethod().getName() + " " + context
+                    + " status=" + status + " binding=" + bindingNanos / 1000 + "us network=" + networkNanos / 1000
+                    + "us decoding=" + decodingNanos / 1000 + "us total=" + durationNanos / 1000 + "us";
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.cy.easyhttp.transport;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 限制同时进行中的请求数的传输装饰器
+ * <p>
+ * okhttp 的 Dispatcher 只限制异步 enqueue 调用，对同步 execute 无效，因此在传输层用信号量限流。
+ * 从发起请求到响应体关闭视为一个进行中的请求；名额不足时调用线程排队等待，
+ * 带超时的调用等待时间计入超时，超时抛出 {@link InterruptedIOException}。
+ * <p>
+ * 名额在响应关闭后才归还，拦截器或响应处理中再次同步调用同一客户端时，
+ * 若名额已被外层调用占满会互相等待，此时应调大上限或改为异步调用。
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public class ConcurrencyLimitTransport implements HttpTransport {
+
+    private final HttpTransport delegate;
+    /**
+     * 全局名额，null 表示不限制
+     */
+    private final Semaphore global;
+    /**
+     * 每个host的名额上限，0 表示不限制
+     */
+    private final int maxRequestsPerHost;
+    private final ConcurrentMap<String, Semaphore> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * @param delegate           实际发送请求的传输
+     * @param maxRequests        最大并发请求数，0 表示不限制
+     * @param maxRequestsPerHost 每个host最大并发请求数，0 表示不限制
+     */
+    public ConcurrencyLimitTransport(HttpTransport delegate, int maxRequests, int maxRequestsPerHost) {
+        if (maxRequests < 0 || maxRequestsPerHost < 0) {
+            throw new IllegalArgumentException("max requests must not be negative");
+        }
+        this.delegate = delegate;
+        this.global = maxRequests > 0 ? new Semaphore(maxRequests, true) : null;
+        this.maxRequestsPerHost = maxRequestsPerHost;
+    }
+
+    @Override
+    public Response execute(Request request) throws IOException {
+        return execute(request, 0);
+    }
+
+    @Override
+    public Response execute(Request request, long timeoutNanos) throws IOException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        Semaphore host = maxRequestsPerHost > 0
+                ? hosts.computeIfAbsent(request.url().host(), h -> new Semaphore(maxRequestsPerHost, true))
+                : null;
+        acquire(host, timeoutNanos, deadline);
+        try {
+            acquire(global, timeoutNanos, deadline);
+        } catch (IOException | RuntimeException e) {
+            release(host);
+            throw e;
+        }
+        Permit permit = new Permit(host, global);
+        Response response;
+        try {
+            if (timeoutNanos > 0) {
+                response = delegate.execute(request, Math.max(1, deadline - System.nanoTime()));
+            } else {
+                response = delegate.execute(request);
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            permit.release();
+            throw e;
+        }
+        ResponseBody body = response.body();
+        if (body == null) {
+            permit.release();
+            return response;
+        }
+        return response.newBuilder().body(new PermitBody(body, permit)).build();
+    }
+
+    private static void acquire(Semaphore semaphore, long timeoutNanos, long deadline) throws IOException {
+        if (semaphore == null) {
+            return;
+        }
+        try {
+            if (timeoutNanos <= 0) {
+                semaphore.acquire();
+            } else if (!semaphore.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                throw new InterruptedIOException("timeout waiting for a request slot");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for a request slot");
+        }
+    }
+
+    private static void release(Semaphore semaphore) {
+        if (semaphore != null) {
+            semaphore.release();
+        }
+    }
+
+    public HttpTransport getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * 一个请求占用的名额，只归还一次
+     */
+    private static final class Permit {
+        private final Semaphore host;
+        private final Semaphore global;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(Semaphore host, Semaphore global) {
+            this.host = host;
+            this.global = global;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                ConcurrencyLimitTransport.release(global);
+                ConcurrencyLimitTransport.release(host);
+            }
+        }
+    }
+
+    /**
+     * 关闭时归还名额的响应体
+     */
+    private static final class PermitBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final Permit permit;
+        private final BufferedSource source;
+
+        PermitBody(ResponseBody delegate, Permit permit) {
+            this.delegate = delegate;
+            this.permit = permit;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        permit.release();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                permit.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.cy.easyhttp.transport;
+
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+
+/**
+ * 传输层SPI，负责把请求真正发送出去
+ * <p>
+ * 请求和响应沿用okhttp的 {@link Request}/{@link Response} 作为数据模型，
+ * 具体由哪个引擎发送(okhttp、JDK HttpClient等)由实现决定。
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public interface HttpTransport {
+
+    /**
+     * 同步执行请求
+     *
+     * @param request 请求
+     * @return 响应，调用方负责关闭
+     * @throws IOException 网络异常
+     */
+    Response execute(Request request) throws IOException;
+
+    /**
+     * 在给定时间内同步执行请求，超时抛出 {@link java.io.InterruptedIOException}
+     * <p>
+     * 默认忽略超时，实现方应尽量覆盖此方法。
+     *
+     * @param request      请求
+     * @param timeoutNanos 整个调用(含读取响应体)的超时纳秒数
+     * @return 响应，调用方负责关闭
+     * @throws IOException 网络异常
+     */
+    default Response execute(Request request, long timeoutNanos) throws IOException {
+        return execute(request);
+    }
+}
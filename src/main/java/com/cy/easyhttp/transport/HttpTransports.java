@@ -0,0 +1,45 @@
+package com.cy.easyhttp.transport;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * 内置传输实现的工厂方法
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public final class HttpTransports {
+
+    /**
+     * JDK HttpClient 实现类，位于多版本jar的 META-INF/versions/11 下
+     */
+    private static final String JDK_TRANSPORT_CLASS = "com.cy.easyhttp.transport.JdkHttpTransport";
+
+    private HttpTransports() {
+    }
+
+    /**
+     * okhttp传输
+     *
+     * @param okHttpClient okHttpClient
+     * @return 传输实现
+     */
+    public static HttpTransport okhttp(OkHttpClient okHttpClient) {
+        return new OkHttpTransport(okHttpClient);
+    }
+
+    /**
+     * 基于 java.net.http.HttpClient 的传输，需要 Java 11 及以上
+     *
+     * @return 传输实现
+     */
+    public static HttpTransport jdk() {
+        try {
+            return (HttpTransport) Class.forName(JDK_TRANSPORT_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("JDK HttpClient transport requires Java 11+", e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create JDK HttpClient transport", e);
+        }
+    }
+}
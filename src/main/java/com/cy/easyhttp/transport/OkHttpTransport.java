@@ -0,0 +1,43 @@
+package com.cy.easyhttp.transport;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于okhttp的默认传输实现
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public class OkHttpTransport implements HttpTransport {
+
+    /**
+     * OkHttpClient
+     */
+    private final OkHttpClient okHttpClient;
+
+    public OkHttpTransport(OkHttpClient okHttpClient) {
+        this.okHttpClient = okHttpClient;
+    }
+
+    @Override
+    public Response execute(Request request) throws IOException {
+        return okHttpClient.newCall(request).execute();
+    }
+
+    @Override
+    public Response execute(Request request, long timeoutNanos) throws IOException {
+        Call call = okHttpClient.newCall(request);
+        call.timeout().timeout(timeoutNanos, TimeUnit.NANOSECONDS);
+        return call.execute();
+    }
+
+    public OkHttpClient getOkHttpClient() {
+        return okHttpClient;
+    }
+}
@@ -1,164 +1,261 @@
 package com.cy.easyhttp.util;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.cfg.CoercionAction;
 import com.fasterxml.jackson.databind.cfg.CoercionInputShape;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * 基于Jackson的序列化/反序列化工具
+ * <p>
+ * 实例由 {@link com.cy.easyhttp.HttpClientConfiguration} 持有，可以传入自定义的 ObjectMapper；
+ * 静态方法使用默认实例。每种返回类型的 ObjectReader 只构建一次。
  *
  * @author cy
  * @since v1.0.0
  */
 public class EasySerializer {
+
+    /**
+     * 可选的字节码加速模块，按顺序尝试，Blackbird 需要 Java 11+
+     */
+    private static final String[] ACCELERATOR_MODULES = {
+            "com.fasterxml.jackson.module.blackbird.BlackbirdModule",
+            "com.fasterxml.jackson.module.afterburner.AfterburnerModule"
+    };
+
     /**
-     * Jackson对象映射器
+     * 非JSON文本到标量类型的转换表
      */
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
-            // 1. 不要用 Java 数组来表示 JSON 数组（除非明确指定）
-            .configure(DeserializationFeature.USE_JAVA_ARRAY_FOR_JSON_ARRAY, false)
+    private static final Map<Type, Function<String, Object>> SCALAR_CONVERTERS = new HashMap<>();
+
+    static {
+        SCALAR_CONVERTERS.put(String.class, content -> content);
+        Function<String, Object> toBoolean = content -> {
+            if ("true".equalsIgnoreCase(content)) {
+                return Boolean.TRUE;
+            }
+            if ("false".equalsIgnoreCase(content)) {
+                return Boolean.FALSE;
+            }
+            throw new RuntimeException("无法将 '" + content + "' 转换为 Boolean");
+        };
+        SCALAR_CONVERTERS.put(Boolean.class, toBoolean);
+        SCALAR_CONVERTERS.put(boolean.class, toBoolean);
+        registerNumber(Integer.class, int.class, Integer::valueOf);
+        registerNumber(Long.class, long.class, Long::valueOf);
+        registerNumber(Double.class, double.class, Double::valueOf);
+        registerNumber(Float.class, float.class, Float::valueOf);
+    }
+
+    private static void registerNumber(Class<?> boxed, Class<?> primitive, Function<String, Object> parser) {
+        Function<String, Object> converter = content -> {
+            try {
+                return parser.apply(content);
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("无法将 '" + content + "' 转换为 " + boxed.getSimpleName());
+            }
+        };
+        SCALAR_CONVERTERS.put(boxed, converter);
+        SCALAR_CONVERTERS.put(primitive, converter);
+    }
 
-            // 2. 当 JSON 中有未知字段时，不要抛异常
-            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+    private final ObjectMapper objectMapper;
+    /**
+     * 按类型缓存的 ObjectReader
+     */
+    private final Map<Type, ObjectReader> readers = new ConcurrentHashMap<>();
 
-            // 3. 允许空字符串 "" 被反序列化为 null（对 String 字段有用）
-            .configure(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT, false)
+    /**
+     * 使用默认配置的 ObjectMapper
+     */
+    public EasySerializer() {
+        this(defaultObjectMapper());
+    }
 
-            // 4. 包装反序列化异常（可选，通常保持默认即可）
-            .configure(DeserializationFeature.WRAP_EXCEPTIONS, true);
+    /**
+     * 使用自定义的 ObjectMapper
+     *
+     * @param objectMapper 对象映射器，构建后不应再修改配置
+     */
+    public EasySerializer(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 默认实例
+     */
+    public static EasySerializer getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * 创建默认配置的 ObjectMapper，可在此基础上调整后传给 {@link #EasySerializer(ObjectMapper)}
+     */
+    public static ObjectMapper defaultObjectMapper() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                // 1. 不要用 Java 数组来表示 JSON 数组（除非明确指定）
+                .configure(DeserializationFeature.USE_JAVA_ARRAY_FOR_JSON_ARRAY, false)
+
+                // 2. 当 JSON 中有未知字段时，不要抛异常
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+
+                // 3. 允许空字符串 "" 被反序列化为 null（对 String 字段有用）
+                .configure(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT, false)
+
+                // 4. 包装反序列化异常（可选，通常保持默认即可）
+                .configure(DeserializationFeature.WRAP_EXCEPTIONS, true);
 
-    static {
         // 全局：允许从 String 转成各种标量类型
-        OBJECT_MAPPER.coercionConfigDefaults()
+        objectMapper.coercionConfigDefaults()
                 .setCoercion(CoercionInputShape.String, CoercionAction.TryConvert);
+        return objectMapper;
     }
 
-    private EasySerializer() {
+    /**
+     * 注册类路径上可用的字节码加速模块(Blackbird 或 Afterburner)，用生成的访问器代替反射读写POJO属性
+     *
+     * @param objectMapper 对象映射器
+     * @return 是否注册成功，类路径上没有加速模块时返回false
+     */
+    public static boolean registerAccelerator(ObjectMapper objectMapper) {
+        for (String className : ACCELERATOR_MODULES) {
+            try {
+                objectMapper.registerModule((Module) Class.forName(className).getDeclaredConstructor().newInstance());
+                return true;
+            } catch (ClassNotFoundException | LinkageError e) {
+                // 尝试下一个模块
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Failed to register Jackson module " + className, e);
+            }
+        }
+        return false;
     }
 
     /**
      * 将对象序列化为JSON字符串
      */
-    public static String serialize(Object obj) {
+    public String write(Object obj) {
         if (obj == null) {
             return null;
         }
 
         try {
-            return OBJECT_MAPPER.writeValueAsString(obj);
+            return objectMapper.writeValueAsString(obj);
         } catch (JsonProcessingException e) {
             throw new RuntimeException("对象序列化失败", e);
         }
     }
 
-
     /**
-     * 将JSON字符串反序列化为对象
+     * 将JSON字符串反序列化为对象，String 和基本类型按原始文本转换
      */
-    public static <T> T deserialize(String json, Type type) {
+    @SuppressWarnings("unchecked")
+    public <T> T read(String json, Type type) {
         if (json == null || json.isEmpty()) {
             return null;
         }
+        Function<String, Object> converter = SCALAR_CONVERTERS.get(type);
+        if (converter != null) {
+            return (T) converter.apply(json);
+        }
         try {
-            JavaType javaType = OBJECT_MAPPER.getTypeFactory().constructType(type);
-            T obj = convertNonJson(json, type);
-            if (obj != null) {
-                return obj;
-            }
-            return OBJECT_MAPPER.readValue(json, javaType);
+            return reader(type).readValue(json);
         } catch (IOException e) {
             throw new RuntimeException("JSON反序列化失败", e);
         }
     }
 
-
     /**
-     * 将JSON字符串反序列化为对象
+     * 从输入流反序列化，不先把内容转成字符串；读取结束(含失败)后关闭输入流
      */
-    public static <T> T deserialize(String json, TypeReference<T> typeReference) {
-        if (json == null || json.isEmpty()) {
-            return null;
-        }
-
+    public <T> T read(InputStream in, Type type) {
         try {
-            return OBJECT_MAPPER.readValue(json, typeReference);
+            return reader(type).readValue(in);
         } catch (IOException e) {
             throw new RuntimeException("JSON反序列化失败", e);
         }
     }
 
-
     /**
-     * 非JSON字符串转换
-     *
-     * @param content 内容
-     * @param type    要转换的类型
-     * @param <T>     泛型
-     * @return 转换后的对象
+     * 从输入流中只反序列化提取器指定的节点；读取结束(含失败)后关闭输入流
      */
-    @SuppressWarnings("unchecked")
-    private static <T> T convertNonJson(String content, Type type) {
-        // 处理 String 类型
-        if (type == String.class) {
-            return (T) content;
+    public <T> T read(InputStream in, Type type, JsonExtractor extractor) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            return extractor.extract(parser, reader(type));
+        } catch (IOException e) {
+            throw new RuntimeException("JSON反序列化失败", e);
         }
+    }
 
-        // 处理 boolean / Boolean
-        if (type == Boolean.class || type == boolean.class) {
-            if ("true".equalsIgnoreCase(content)) {
-                return (T) Boolean.TRUE;
-            }
-            if ("false".equalsIgnoreCase(content)) {
-                return (T) Boolean.FALSE;
-            }
-            throw new RuntimeException("无法将 '" + content + "' 转换为 Boolean");
-        }
+    /**
+     * 是否为按原始文本转换的类型
+     */
+    public static boolean isScalar(Type type) {
+        return SCALAR_CONVERTERS.containsKey(type);
+    }
 
-        // 处理 int / Integer
-        if (type == Integer.class || type == int.class) {
-            try {
-                return (T) Integer.valueOf(content);
-            } catch (NumberFormatException e) {
-                throw new RuntimeException("无法将 '" + content + "' 转换为 Integer");
-            }
-        }
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
 
-        // 处理 long / Long
-        if (type == Long.class || type == long.class) {
-            try {
-                return (T) Long.valueOf(content);
-            } catch (NumberFormatException e) {
-                throw new RuntimeException("无法将 '" + content + "' 转换为 Long");
-            }
+    private ObjectReader reader(Type type) {
+        ObjectReader reader = readers.get(type);
+        if (reader == null) {
+            reader = readers.computeIfAbsent(type,
+                    t -> objectMapper.readerFor(objectMapper.getTypeFactory().constructType(t)));
         }
+        return reader;
+    }
 
-        // 处理 double / Double
-        if (type == Double.class || type == double.class) {
-            try {
-                return (T) Double.valueOf(content);
-            } catch (NumberFormatException e) {
-                throw new RuntimeException("无法将 '" + content + "' 转换为 Double");
-            }
+    /**
+     * 使用默认实例将对象序列化为JSON字符串
+     */
+    public static String serialize(Object obj) {
+        return getDefault().write(obj);
+    }
+
+
+    /**
+     * 使用默认实例将JSON字符串反序列化为对象
+     */
+    public static <T> T deserialize(String json, Type type) {
+        return getDefault().read(json, type);
+    }
+
+
+    /**
+     * 使用默认实例将JSON字符串反序列化为对象
+     */
+    public static <T> T deserialize(String json, TypeReference<T> typeReference) {
+        if (json == null || json.isEmpty()) {
+            return null;
         }
 
-        // 处理 float / Float
-        if (type == Float.class || type == float.class) {
-            try {
-                return (T) Float.valueOf(content);
-            } catch (NumberFormatException e) {
-                throw new RuntimeException("无法将 '" + content + "' 转换为 Float");
-            }
+        try {
+            return getDefault().objectMapper.readValue(json, typeReference);
+        } catch (IOException e) {
+            throw new RuntimeException("JSON反序列化失败", e);
         }
-        return null;
     }
 
-
+    /**
+     * 默认实例，首次使用时才创建
+     */
+    private static class DefaultHolder {
+        private static final EasySerializer INSTANCE = new EasySerializer();
+    }
 }
-    
\ No newline at end of file
@@ -1,11 +1,35 @@
 package com.cy.easyhttp.util;
 
+import com.cy.easyhttp.annotation.param.JsonBody;
+import com.cy.easyhttp.deadline.Deadline;
+import com.cy.easyhttp.deadline.DeadlineExceededException;
+import com.cy.easyhttp.ratelimit.RateLimitPermit;
+import com.cy.easyhttp.schedule.PriorityScheduler;
+import com.cy.easyhttp.schedule.RequestPriority;
+import com.cy.easyhttp.trace.HttpSpan;
+import com.cy.easyhttp.trace.TraceContext;
+import com.cy.easyhttp.transport.HttpTransport;
+import com.cy.easyhttp.transport.OkHttpTransport;
 import okhttp3.*;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * HttpUtil简易okhttp工具类
@@ -17,12 +41,61 @@ public class HttpUtil {
 
 
     /**
-     * OkHttpClient
+     * 传输层实现
      */
-    private final OkHttpClient okHttpClient;
+    private final HttpTransport transport;
+    /**
+     * 向下游传播剩余超时(毫秒)的请求头名称，为空时不传播
+     */
+    private final String deadlineHeader;
+    /**
+     * 分块下载的并发线程池
+     */
+    private final Executor executor;
+    /**
+     * 分块下载时每个分块的最大重试次数
+     */
+    private final int maxRetry;
+    /**
+     * 请求体序列化和响应体反序列化
+     */
+    private final EasySerializer serializer;
+    /**
+     * 按优先级限制并发，可为null
+     */
+    private final PriorityScheduler scheduler;
+
+    /**
+     * 当前线程正在其许可下执行请求的调度器，用于识别嵌套调用
+     */
+    private static final ThreadLocal<PriorityScheduler> SCHEDULED = new ThreadLocal<>();
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
 
     public HttpUtil(OkHttpClient okHttpClient) {
-        this.okHttpClient = okHttpClient;
+        this(new OkHttpTransport(okHttpClient));
+    }
+
+    public HttpUtil(HttpTransport transport) {
+        this(transport, null);
+    }
+
+    public HttpUtil(HttpTransport transport, String deadlineHeader) {
+        this(transport, deadlineHeader, ForkJoinPool.commonPool(), 3);
+    }
+
+    public HttpUtil(HttpTransport transport, String deadlineHeader, Executor executor, int maxRetry) {
+        this(transport, deadlineHeader, executor, maxRetry, EasySerializer.getDefault(), null);
+    }
+
+    public HttpUtil(HttpTransport transport, String deadlineHeader, Executor executor, int maxRetry,
+                    EasySerializer serializer, PriorityScheduler scheduler) {
+        this.transport = transport;
+        this.deadlineHeader = deadlineHeader;
+        this.executor = executor;
+        this.maxRetry = maxRetry;
+        this.serializer = serializer;
+        this.scheduler = scheduler;
     }
 
     /**
@@ -34,21 +107,23 @@ public class HttpUtil {
      * @param type    返回类型
      */
     public <T> T doGet(String path, Map<String, String> headers, Map<String, String> params, Type type) {
-        HttpUrl.Builder urlBuilder = Objects.requireNonNull(HttpUrl.parse(path)).newBuilder();
-
-        // 添加查询参数
-        if (params != null) {
-            for (Map.Entry<String, String> entry : params.entrySet()) {
-                urlBuilder.addQueryParameter(entry.getKey(), entry.getValue());
-            }
-        }
+        return doGet(buildUrl(path, params), headers, type);
+    }
 
+    /**
+     * 通用GET请求
+     *
+     * @param url     已构建好的完整请求地址
+     * @param headers 请求头
+     * @param type    返回类型
+     */
+    public <T> T doGet(HttpUrl url, Map<String, String> headers, Type type) {
         Request request = new Request.Builder()
-                .url(urlBuilder.build())
+                .url(url)
                 .headers(Headers.of(headers))
                 .build();
 
-        return executeRequest(request, type);
+        return executeRequest(request, type, null);
     }
 
 
@@ -62,7 +137,20 @@ public class HttpUtil {
      * @return 返回结果
      */
     public <T> T doPost(String path, Map<String, String> headers, Object body, Type type) {
-        return doRequest(path, headers, body, type, "POST");
+        return doRequest(Objects.requireNonNull(HttpUrl.parse(path)), headers, body, type, "POST");
+    }
+
+    /**
+     * 通用POST请求
+     *
+     * @param url  已构建好的完整请求地址
+     * @param body 请求体
+     * @param type 返回类型
+     * @param <T>  返回类型
+     * @return 返回结果
+     */
+    public <T> T doPost(HttpUrl url, Map<String, String> headers, Object body, Type type) {
+        return doRequest(url, headers, body, type, "POST");
     }
 
 
@@ -76,7 +164,20 @@ public class HttpUtil {
      * @return 返回结果
      */
     public <T> T doPut(String path, Map<String, String> headers, Object body, Type type) {
-        return doRequest(path, headers, body, type, "PUT");
+        return doRequest(Objects.requireNonNull(HttpUrl.parse(path)), headers, body, type, "PUT");
+    }
+
+    /**
+     * 通用PUT请求
+     *
+     * @param url  已构建好的完整请求地址
+     * @param body 请求体
+     * @param type 返回类型
+     * @param <T>  返回类型
+     * @return 返回结果
+     */
+    public <T> T doPut(HttpUrl url, Map<String, String> headers, Object body, Type type) {
+        return doRequest(url, headers, body, type, "PUT");
     }
 
     /**
@@ -89,59 +190,260 @@ public class HttpUtil {
      * @return 返回结果
      */
     public <T> T doDelete(String path, Map<String, String> headers, Map<String, String> params, Type type) {
-        HttpUrl.Builder urlBuilder = Objects.requireNonNull(HttpUrl.parse(path)).newBuilder();
-        // 添加查询参数
-        if (params != null) {
-            for (Map.Entry<String, String> entry : params.entrySet()) {
-                urlBuilder.addQueryParameter(entry.getKey(), entry.getValue());
-            }
-        }
+        return doDelete(buildUrl(path, params), headers, type);
+    }
+
+    /**
+     * 通用DELETE请求
+     *
+     * @param url  已构建好的完整请求地址
+     * @param type 返回类型
+     * @param <T>  返回类型
+     * @return 返回结果
+     */
+    public <T> T doDelete(HttpUrl url, Map<String, String> headers, Type type) {
         Request request = new Request.Builder()
-                .url(urlBuilder.build())
+                .url(url)
                 .headers(Headers.of(headers))
                 .delete()
                 .build();
-        return executeRequest(request, type);
+        return executeRequest(request, type, null);
     }
 
     /**
      * 通用请求处理
      *
-     * @param path   请求路径
-     * @param body   请求体
-     * @param type   返回类型
-     * @param method 请求方法
+     * @param httpUrl 请求地址
+     * @param body    请求体
+     * @param type    返回类型
+     * @param method  请求方法
      */
-    private <T> T doRequest(String path, Map<String, String> headers, Object body, Type type, String method) {
-        HttpUrl httpUrl = Objects.requireNonNull(HttpUrl.parse(path));
+    private <T> T doRequest(HttpUrl httpUrl, Map<String, String> headers, Object body, Type type, String method) {
+        return executeRequest(buildRequest(method, httpUrl, Headers.of(headers), body), type, null);
+    }
+
+    /**
+     * 构建请求，POST/PUT 等需要请求体的方法在 body 为空时发送空的JSON请求体
+     *
+     * @param method  请求方法
+     * @param httpUrl 请求地址
+     * @param headers 请求头
+     * @param body    请求体对象
+     * @return 请求
+     */
+    public Request buildRequest(String method, HttpUrl httpUrl, Headers headers, Object body) {
+        return buildRequest(method, httpUrl, headers, body, null);
+    }
+
+    /**
+     * 构建请求
+     *
+     * @param method     请求方法
+     * @param httpUrl    请求地址
+     * @param headers    请求头
+     * @param body       请求体对象
+     * @param downloadTo 响应体直接写入的文件，可为null
+     * @return 请求
+     */
+    public Request buildRequest(String method, HttpUrl httpUrl, Headers headers, Object body, Path downloadTo) {
+        return buildRequest(method, httpUrl, headers, body, downloadTo, JsonBody.Format.ARRAY);
+    }
 
+    /**
+     * 构建请求，body 为 Stream、Iterator 或 Publisher 时流式发送
+     *
+     * @param method     请求方法
+     * @param httpUrl    请求地址
+     * @param headers    请求头
+     * @param body       请求体对象
+     * @param downloadTo 响应体直接写入的文件，可为null
+     * @param format     流式请求体的格式
+     * @return 请求
+     */
+    public Request buildRequest(String method, HttpUrl httpUrl, Headers headers, Object body, Path downloadTo,
+                                JsonBody.Format format) {
         // 创建请求体
         RequestBody requestBody = null;
-
-        if (body != null) {
-            requestBody = new JsonRequestBody(EasySerializer.serialize(body), MediaType.parse("application/json; charset=utf-8"));
-        }else {
-            requestBody = new JsonRequestBody("", MediaType.parse("application/json; charset=utf-8"));
+        if (!permitsRequestBody(method)) {
+            // GET/HEAD 不能携带请求体，忽略 @JsonBody
+            requestBody = null;
+        } else if (StreamingJsonBody.isStreaming(body)) {
+            requestBody = new StreamingJsonBody(body, format, serializer.getObjectMapper());
+        } else if (body != null) {
+            requestBody = new JsonRequestBody(serializer.write(body), JSON);
+        } else if ("POST".equals(method) || "PUT".equals(method) || "PATCH".equals(method)) {
+            requestBody = new JsonRequestBody("", JSON);
         }
 
-        Request.Builder requestBuilder = new Request.Builder()
+        return new Request.Builder()
                 .url(httpUrl)
                 .method(method, requestBody)
-                .headers(Headers.of(headers));
-        return executeRequest(requestBuilder.build(), type);
+                .headers(headers)
+                .tag(Path.class, downloadTo)
+                .build();
     }
 
+    private static boolean permitsRequestBody(String method) {
+        return !"GET".equals(method) && !"HEAD".equals(method);
+    }
 
     /**
+     * 解析请求路径并追加查询参数
      *
+     * @param path   请求路径
+     * @param params 查询参数
+     * @return 请求地址
+     */
+    private static HttpUrl buildUrl(String path, Map<String, String> params) {
+        HttpUrl httpUrl = Objects.requireNonNull(HttpUrl.parse(path));
+        if (params == null || params.isEmpty()) {
+            return httpUrl;
+        }
+        HttpUrl.Builder urlBuilder = httpUrl.newBuilder();
+        // 添加查询参数
+        for (Map.Entry<String, String> entry : params.entrySet()) {
+            urlBuilder.addQueryParameter(entry.getKey(), entry.getValue());
+        }
+        return urlBuilder.build();
+    }
+
+    /**
      * 执行请求并处理响应
      *
      * @param request 请求
      * @param type    返回类型
      * @return 响应结果
      */
-    private <T> T executeRequest(Request request, Type type) {
-        try (Response response = okHttpClient.newCall(request).execute()) {
+    public <T> T execute(Request request, Type type) {
+        return executeRequest(request, type, null);
+    }
+
+    /**
+     * 执行请求并处理响应，记录网络和解码阶段耗时
+     *
+     * @param request 请求
+     * @param type    返回类型
+     * @param span    追踪span，可为null
+     * @return 响应结果
+     */
+    public <T> T execute(Request request, Type type, HttpSpan span) {
+        return executeRequest(request, type, span);
+    }
+
+    /**
+     *
+     * 执行请求并处理响应
+     *
+     * @param request 请求
+     * @param type    返回类型
+     * @return 响应结果
+     */
+    private <T> T executeRequest(Request request, Type type, HttpSpan span) {
+        request = propagateTrace(request);
+        SchedulerPermit permit = enter(request);
+        try {
+            return doExecuteRequest(request, type, span, permit);
+        } finally {
+            exit(permit);
+        }
+    }
+
+    /**
+     * 发送请求并丢弃响应体，只返回状态码；与 {@link #execute} 相同地经过优先级调度、截止时间和限流反馈，
+     * 用于 Journal 等不关心响应内容的发送方
+     *
+     * @param request 请求
+     * @param span    追踪span，可为null，不在这里结束
+     * @return 响应状态码
+     * @throws IOException 网络错误
+     */
+    public int deliver(Request request, HttpSpan span) throws IOException {
+        request = propagateTrace(request);
+        SchedulerPermit permit = enter(request);
+        try {
+            return doDeliver(request, span);
+        } finally {
+            exit(permit);
+        }
+    }
+
+    /**
+     * 按优先级获取调度许可
+     * <p>
+     * 当前线程已在同一调度器的许可下执行请求时(如 okhttp 拦截器、Authenticator 或传输层中再次通过客户端发请求)，
+     * 嵌套请求直接在外层许可下执行而不再排队，否则许可全部被外层请求占用时会互相等待。
+     *
+     * @return 许可，没有配置调度器或嵌套调用时为null
+     */
+    private SchedulerPermit enter(Request request) {
+        PriorityScheduler previous = SCHEDULED.get();
+        if (scheduler == null || previous == scheduler) {
+            return null;
+        }
+        RequestPriority priority = request.tag(RequestPriority.class);
+        scheduler.acquire(priority != null ? priority : RequestPriority.NORMAL, Deadline.current());
+        SCHEDULED.set(scheduler);
+        return new SchedulerPermit(scheduler, previous);
+    }
+
+    /**
+     * 请求在当前线程结束；许可已转交给返回的流时由流关闭时归还
+     */
+    private static void exit(SchedulerPermit permit) {
+        if (permit == null) {
+            return;
+        }
+        if (permit.previous == null) {
+            SCHEDULED.remove();
+        } else {
+            SCHEDULED.set(permit.previous);
+        }
+        if (!permit.handedOff) {
+            permit.release();
+        }
+    }
+
+    private int doDeliver(Request request, HttpSpan span) throws IOException {
+        long start = span == null ? 0 : System.nanoTime();
+        try (Response response = send(request)) {
+            if (span != null) {
+                span.onPhase(HttpSpan.Phase.NETWORK, start, System.nanoTime());
+                span.onStatus(response.code());
+            }
+            return response.code();
+        }
+    }
+
+    /**
+     * 请求中没有 traceparent 时写入当前线程的追踪上下文，直接调用 doGet/doPost 等方法时同样传播
+     */
+    private static Request propagateTrace(Request request) {
+        TraceContext context = TraceContext.current();
+        if (context == null || request.header(TraceContext.TRACEPARENT) != null) {
+            return request;
+        }
+        return request.newBuilder().headers(context.inject(request.headers())).build();
+    }
+
+    private <T> T doExecuteRequest(Request request, Type type, HttpSpan span, SchedulerPermit permit) {
+        Path target = request.tag(Path.class);
+        RangedDownload ranged = target == null ? null : request.tag(RangedDownload.class);
+        if (ranged != null && ranged.getParallelism() > 1) {
+            return downloadRanged(request, target, ranged, type, span);
+        }
+        Deadline deadline = Deadline.current();
+        long start = span == null ? 0 : System.nanoTime();
+        Response response = null;
+        // InputStream/Source 由调用方负责关闭
+        boolean callerOwned = false;
+        try {
+            response = send(request);
+            long received = 0;
+            if (span != null) {
+                received = System.nanoTime();
+                span.onPhase(HttpSpan.Phase.NETWORK, start, received);
+                span.onStatus(response.code());
+            }
             if (!response.isSuccessful()) {
                 String bodyStr = response.body() != null ? response.body().string() : "null";
                 throw new IOException("okhttp HTTP Error: " + response.code() + ", Body: " + bodyStr);
@@ -150,11 +452,211 @@ public class HttpUtil {
             if (response.body() == null) {
                 throw new IOException("okhttp HTTP Error: " + response.code() + ", Body: null");
             }
-            String body = response.body().string();
-            return EasySerializer.deserialize(body, type);
+            T result;
+            if (target != null) {
+                result = download(response.body(), target, type);
+            } else if (isStreamType(type)) {
+                callerOwned = true;
+                result = readStream(response.body(), type, permit);
+            } else {
+                result = readBody(response.body(), type, request.tag(JsonExtractor.class));
+            }
+            if (span != null) {
+                span.onPhase(HttpSpan.Phase.DECODING, received, System.nanoTime());
+                span.onResponseSize(response.body().contentLength());
+            }
+            return result;
+        } catch (DeadlineExceededException | ResponseEnvelopeException e) {
+            throw e;
+        } catch (InterruptedIOException e) {
+            if (deadline != null && deadline.isExpired()) {
+                throw new DeadlineExceededException("Deadline exceeded: " + request.method() + " " + request.url(), e);
+            }
+            throw new RuntimeException(e);
         } catch (Exception e) {
+            // 读取响应体超时时，反序列化把 InterruptedIOException 包装在异常链中
+            if (deadline != null && deadline.isExpired() && e.getCause() instanceof InterruptedIOException) {
+                throw new DeadlineExceededException("Deadline exceeded: " + request.method() + " " + request.url(), e.getCause());
+            }
             throw new RuntimeException(e);
+        } finally {
+            if (response != null && !callerOwned) {
+                response.close();
+            }
         }
     }
 
+    /**
+     * 按当前截止时间的剩余预算发送请求，预算耗尽时不再发送
+     *
+     * @param request 请求
+     * @return 响应，调用方负责关闭
+     */
+    Response send(Request request) throws IOException {
+        Deadline deadline = Deadline.current();
+        Response response;
+        if (deadline == null) {
+            response = transport.execute(request);
+        } else {
+            long timeoutNanos = deadline.remainingNanos();
+            if (timeoutNanos <= 0) {
+                throw new DeadlineExceededException("Deadline exceeded before sending " + request.method() + " " + request.url());
+            }
+            if (deadlineHeader != null) {
+                request = request.newBuilder()
+                        .header(deadlineHeader, String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toMillis(timeoutNanos))))
+                        .build();
+            }
+            response = transport.execute(request, timeoutNanos);
+        }
+        // 根据 429/RateLimit-* 响应调整限流器
+        RateLimitPermit permit = request.tag(RateLimitPermit.class);
+        if (permit != null) {
+            permit.onResponse(response);
+        }
+        return response;
+    }
+
+    /**
+     * 分块并发下载到文件
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T downloadRanged(Request request, Path target, RangedDownload ranged, Type type, HttpSpan span) {
+        Deadline deadline = Deadline.current();
+        long start = span == null ? 0 : System.nanoTime();
+        try {
+            long written = new RangedDownloader(this, ranged, executor, maxRetry).download(request, target);
+            if (span != null) {
+                span.onPhase(HttpSpan.Phase.NETWORK, start, System.nanoTime());
+                span.onResponseSize(written);
+            }
+            if (type == Path.class) {
+                return (T) target;
+            }
+            if (type == long.class || type == Long.class) {
+                return (T) Long.valueOf(written);
+            }
+            return null;
+        } catch (InterruptedIOException e) {
+            if (deadline != null && deadline.isExpired()) {
+                throw new DeadlineExceededException("Deadline exceeded: " + request.method() + " " + request.url(), e);
+            }
+            throw new RuntimeException(e);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 是否为调用方持有的流式返回类型
+     */
+    private static boolean isStreamType(Type type) {
+        return type == InputStream.class || type == Source.class || type == BufferedSource.class;
+    }
+
+    /**
+     * 返回响应体的流，关闭流即释放连接；有调度许可时一直占用到流关闭
+     *
+     * @param permit 调度许可，可为null
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T readStream(ResponseBody body, Type type, SchedulerPermit permit) {
+        if (permit == null) {
+            return (T) (type == InputStream.class ? body.byteStream() : body.source());
+        }
+        BufferedSource source = Okio.buffer(new ForwardingSource(body.source()) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    permit.release();
+                }
+            }
+        });
+        permit.handedOff = true;
+        return (T) (type == InputStream.class ? source.inputStream() : source);
+    }
+
+    /**
+     * 读取响应体，二进制类型直接返回字节，标量类型按文本转换，其它类型从流中直接反序列化
+     *
+     * @param extractor 只反序列化部分节点时的提取器，可为null
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T readBody(ResponseBody body, Type type, JsonExtractor extractor) throws IOException {
+        if (type == void.class || type == Void.class) {
+            return null;
+        }
+        if (type == byte[].class) {
+            return (T) body.bytes();
+        }
+        if (type == ByteBuffer.class) {
+            return (T) ByteBuffer.wrap(body.bytes());
+        }
+        if (extractor == null && EasySerializer.isScalar(type)) {
+            return serializer.read(body.string(), type);
+        }
+        BufferedSource source = body.source();
+        if (source.exhausted()) {
+            return null;
+        }
+        return extractor == null ? serializer.read(source.inputStream(), type)
+                : serializer.read(source.inputStream(), type, extractor);
+    }
+
+    /**
+     * 将响应体直接写入文件，不在堆上缓存整个响应
+     *
+     * @param body   响应体
+     * @param target 目标文件
+     * @param type   方法返回类型，支持 Path、long(写入字节数) 和 void
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T download(ResponseBody body, Path target, Type type) throws IOException {
+        long written;
+        try (BufferedSink sink = Okio.buffer(Okio.sink(target))) {
+            written = sink.writeAll(body.source());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        if (type == Path.class) {
+            return (T) target;
+        }
+        if (type == long.class || type == Long.class) {
+            return (T) Long.valueOf(written);
+        }
+        return null;
+    }
+
+
+    /**
+     * 一次请求占用的调度许可，只归还一次
+     */
+    private static final class SchedulerPermit {
+        private final PriorityScheduler scheduler;
+        /**
+         * 进入前当前线程所在的调度器，可为null
+         */
+        private final PriorityScheduler previous;
+        private final AtomicBoolean released = new AtomicBoolean();
+        /**
+         * 许可已转交给调用方持有的流
+         */
+        private boolean handedOff;
+
+        SchedulerPermit(PriorityScheduler scheduler, PriorityScheduler previous) {
+            this.scheduler = scheduler;
+            this.previous = previous;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                scheduler.release();
+            }
+        }
+    }
 }
@@ -0,0 +1,178 @@
+package com.cy.easyhttp.util;
+
+import com.cy.easyhttp.annotation.method.Extract;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 按 JSON Pointer 从响应中提取节点，由 {@link Extract} 编译而来，每个方法一个实例
+ * <p>
+ * 在token流上逐层匹配，与目标节点无关的子树直接跳过；目标节点和状态码都读到后不再继续解析。
+ * 一个指针指向另一个指针的节点内部时(如数据为根节点、状态码在数据内)，把该节点读成树后再分别取值。
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public final class JsonExtractor {
+
+    private static final int DATA = 0;
+    private static final int STATUS = 1;
+    private static final int MESSAGE = 2;
+
+    /**
+     * 依次为数据、状态码、错误信息的指针，未设置的为null
+     */
+    private final JsonPointer[] pointers;
+    private final Set<String> success;
+
+    private JsonExtractor(JsonPointer[] pointers, Set<String> success) {
+        this.pointers = pointers;
+        this.success = success;
+    }
+
+    /**
+     * 编译注解中的指针
+     *
+     * @param extract 注解
+     * @return 提取器
+     * @throws IllegalArgumentException 指针格式错误
+     */
+    public static JsonExtractor compile(Extract extract) {
+        JsonPointer[] pointers = {
+                JsonPointer.compile(extract.value()),
+                extract.status().isEmpty() ? null : JsonPointer.compile(extract.status()),
+                extract.message().isEmpty() ? null : JsonPointer.compile(extract.message())
+        };
+        return new JsonExtractor(pointers, new HashSet<>(Arrays.asList(extract.success())));
+    }
+
+    /**
+     * 提取并反序列化目标节点
+     *
+     * @param parser 未开始读取的解析器
+     * @param reader 目标类型的 ObjectReader
+     * @return 目标节点反序列化的结果，节点不存在时返回null
+     * @throws ResponseEnvelopeException 状态码不表示成功
+     */
+    @SuppressWarnings("unchecked")
+    <T> T extract(JsonParser parser, ObjectReader reader) throws IOException {
+        Object[] values = new Object[pointers.length];
+        boolean[] found = new boolean[pointers.length];
+        if (parser.nextToken() != null) {
+            match(parser, pointers, reader, values, found);
+        }
+        if (pointers[STATUS] != null) {
+            String status = (String) values[STATUS];
+            if (!found[STATUS] || !success.contains(status)) {
+                throw new ResponseEnvelopeException(status, (String) values[MESSAGE]);
+            }
+        }
+        return (T) values[DATA];
+    }
+
+    /**
+     * 匹配当前值，解析器位于值的第一个token
+     *
+     * @param tails 每个目标相对当前值的剩余指针，不在当前分支上的为null
+     * @return 是否所有目标都已读到
+     */
+    private boolean match(JsonParser parser, JsonPointer[] tails, ObjectReader reader,
+                          Object[] values, boolean[] found) throws IOException {
+        int matched = -1;
+        int active = 0;
+        for (int i = 0; i < tails.length; i++) {
+            if (tails[i] != null && !found[i]) {
+                active++;
+                if (tails[i].matches()) {
+                    matched = i;
+                }
+            }
+        }
+        if (matched >= 0) {
+            if (active == 1) {
+                read(parser, matched, reader, values, found);
+            } else {
+                readTree(reader.readTree(parser), tails, reader, values, found);
+            }
+            return done(found);
+        }
+        JsonToken token = parser.currentToken();
+        boolean object = token == JsonToken.START_OBJECT;
+        if (!object && token != JsonToken.START_ARRAY) {
+            return false;
+        }
+        JsonPointer[] children = new JsonPointer[tails.length];
+        int index = 0;
+        while ((token = parser.nextToken()) != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY) {
+            String name = null;
+            if (object) {
+                name = parser.currentName();
+                parser.nextToken();
+            }
+            boolean relevant = false;
+            for (int i = 0; i < tails.length; i++) {
+                children[i] = tails[i] == null || found[i] ? null
+                        : object ? tails[i].matchProperty(name) : tails[i].matchElement(index);
+                relevant |= children[i] != null;
+            }
+            index++;
+            if (!relevant) {
+                parser.skipChildren();
+            } else if (match(parser, children.clone(), reader, values, found)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void read(JsonParser parser, int target, ObjectReader reader, Object[] values, boolean[] found)
+            throws IOException {
+        found[target] = true;
+        if (target == DATA) {
+            values[DATA] = parser.currentToken() == JsonToken.VALUE_NULL ? null : reader.readValue(parser);
+        } else if (parser.currentToken().isScalarValue()) {
+            values[target] = parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getText();
+        } else {
+            parser.skipChildren();
+        }
+    }
+
+    /**
+     * 从已读成树的节点中取出所有目标
+     */
+    private void readTree(JsonNode node, JsonPointer[] tails, ObjectReader reader, Object[] values,
+                          boolean[] found) throws IOException {
+        for (int i = 0; i < tails.length; i++) {
+            if (tails[i] == null || found[i]) {
+                continue;
+            }
+            JsonNode target = node.at(tails[i]);
+            if (target.isMissingNode()) {
+                continue;
+            }
+            found[i] = true;
+            if (i == DATA) {
+                values[DATA] = target.isNull() ? null : reader.readValue(target);
+            } else if (target.isValueNode() && !target.isNull()) {
+                values[i] = target.asText();
+            }
+        }
+    }
+
+    private boolean done(boolean[] found) {
+        for (int i = 0; i < pointers.length; i++) {
+            if (pointers[i] != null && !found[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
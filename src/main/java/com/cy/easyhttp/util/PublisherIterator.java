@@ -0,0 +1,216 @@
+package com.cy.easyhttp.util;
+
+import com.cy.easyhttp.deadline.Deadline;
+import com.cy.easyhttp.deadline.DeadlineExceededException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把 Publisher 转换为阻塞的 Iterator，按消费进度分批 request，保证背压
+ * <p>
+ * 同时支持 java.util.concurrent.Flow.Publisher(Java 9+) 和 org.reactivestreams.Publisher，
+ * 两者都通过反射和动态代理实现 Subscriber，不需要编译期依赖。
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+final class PublisherIterator implements Iterator<Object>, AutoCloseable {
+
+    private static final String[] PUBLISHER_TYPES = {
+            "java.util.concurrent.Flow$Publisher",
+            "org.reactivestreams.Publisher"
+    };
+    private static final int PREFETCH = 64;
+    private static final Object COMPLETE = new Object();
+
+    /**
+     * 已请求未消费的元素最多 PREFETCH 个，再加一个结束标记
+     */
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(PREFETCH + 1);
+    private final Deadline deadline = Deadline.current();
+    private volatile Object subscription;
+    private volatile Method request;
+    private volatile Method cancel;
+    /**
+     * Publisher 发出的元素超过请求数量时的异常，数据已丢失，消费方不再继续读取
+     */
+    private volatile RuntimeException overflow;
+    private Object next;
+    private boolean done;
+    private int consumed;
+
+    PublisherIterator(Object publisher) {
+        Class<?> publisherType = publisherType(publisher.getClass());
+        if (publisherType == null) {
+            throw new IllegalArgumentException("Not a Publisher: " + publisher.getClass().getName());
+        }
+        try {
+            Method subscribe = null;
+            for (Method method : publisherType.getMethods()) {
+                if ("subscribe".equals(method.getName()) && method.getParameterCount() == 1) {
+                    subscribe = method;
+                }
+            }
+            Class<?> subscriberType = subscribe.getParameterTypes()[0];
+            Object subscriber = Proxy.newProxyInstance(subscriberType.getClassLoader(),
+                    new Class<?>[]{subscriberType}, (proxy, method, args) -> onSignal(proxy, method, args));
+            subscribe.invoke(publisher, subscriber);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException("Failed to subscribe to publisher", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Failed to subscribe to publisher", e);
+        }
+    }
+
+    /**
+     * 是否为支持的 Publisher 类型
+     */
+    static boolean isPublisher(Object body) {
+        return body != null && publisherType(body.getClass()) != null;
+    }
+
+    private static Class<?> publisherType(Class<?> type) {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Class<?> i : c.getInterfaces()) {
+                for (String name : PUBLISHER_TYPES) {
+                    if (name.equals(i.getName())) {
+                        return i;
+                    }
+                }
+                Class<?> found = publisherType(i);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Subscriber 的实现
+     */
+    private Object onSignal(Object proxy, Method method, Object[] args) throws Exception {
+        switch (method.getName()) {
+            case "onSubscribe":
+                Class<?> subscriptionType = method.getParameterTypes()[0];
+                request = subscriptionType.getMethod("request", long.class);
+                cancel = subscriptionType.getMethod("cancel");
+                subscription = args[0];
+                request.invoke(subscription, (long) PREFETCH);
+                return null;
+            case "onNext":
+                if (!queue.offer(args[0]) && overflow == null) {
+                    overflow = new IllegalStateException("Publisher emitted more elements than requested");
+                    invoke(cancel);
+                }
+                return null;
+            case "onError":
+                queue.offer(new Failure((Throwable) args[0]));
+                return null;
+            case "onComplete":
+                queue.offer(COMPLETE);
+                return null;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "PublisherIterator$Subscriber";
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (overflow != null && !done) {
+            done = true;
+            next = null;
+            throw overflow;
+        }
+        if (next == null && !done) {
+            Object item = take();
+            if (item == COMPLETE) {
+                done = true;
+            } else if (item instanceof Failure) {
+                done = true;
+                Throwable error = ((Failure) item).error;
+                throw error instanceof RuntimeException ? (RuntimeException) error
+                        : new RuntimeException("Publisher failed", error);
+            } else {
+                next = item;
+                // 消费过半后补充请求
+                if (++consumed == PREFETCH / 2) {
+                    invoke(request, (long) consumed);
+                    consumed = 0;
+                }
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Object next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Object item = next;
+        next = null;
+        return item;
+    }
+
+    /**
+     * 未消费完时取消订阅
+     */
+    @Override
+    public void close() {
+        if (!done && subscription != null) {
+            done = true;
+            invoke(cancel);
+        }
+    }
+
+    private Object take() {
+        try {
+            if (deadline == null) {
+                return queue.take();
+            }
+            Object item = queue.poll(Math.max(0, deadline.remainingNanos()), TimeUnit.NANOSECONDS);
+            if (item == null) {
+                throw new DeadlineExceededException("Deadline exceeded while waiting for publisher");
+            }
+            return item;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for publisher", e);
+        }
+    }
+
+    private void invoke(Method method, Object... args) {
+        try {
+            method.invoke(subscription, args);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * onError 信号
+     */
+    private static final class Failure {
+        private final Throwable error;
+
+        Failure(Throwable error) {
+            this.error = error;
+        }
+    }
+}
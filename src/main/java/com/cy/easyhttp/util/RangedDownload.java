@@ -0,0 +1,34 @@
+package com.cy.easyhttp.util;
+
+/**
+ * 分块并发下载参数，作为请求的tag传给 {@link HttpUtil}
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public final class RangedDownload {
+    /**
+     * 并发数
+     */
+    private final int parallelism;
+    /**
+     * 分块大小，单位字节
+     */
+    private final long chunkSize;
+
+    public RangedDownload(int parallelism, long chunkSize) {
+        if (parallelism < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("parallelism and chunkSize must be positive");
+        }
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getChunkSize() {
+        return chunkSize;
+    }
+}
@@ -0,0 +1,329 @@
+package com.cy.easyhttp.util;
+
+import com.cy.easyhttp.deadline.Deadline;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分块并发下载
+ * <p>
+ * 先发送第一个分块的Range请求作为探测，获取总长度和校验器；服务端不支持Range时退化为单连接下载。
+ * 其余分块由多个线程并发请求，按位置写入同一个 {@link FileChannel}，每个分块(包括探测分块)失败后从已写入的位置续传，
+ * 续传时通过 If-Range 保证资源未发生变化；408、429 和 5xx 响应按指数退避重试。
+ * If-Range 只使用强ETag，弱ETag不能用于 If-Range，此时退而使用 Last-Modified，两者都没有时不校验。
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+final class RangedDownloader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * 分块重试的初始和最大退避时间
+     */
+    private static final long INITIAL_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 2000;
+
+    private final HttpUtil httpUtil;
+    private final RangedDownload options;
+    private final Executor executor;
+    private final int maxRetry;
+
+    RangedDownloader(HttpUtil httpUtil, RangedDownload options, Executor executor, int maxRetry) {
+        this.httpUtil = httpUtil;
+        this.options = options;
+        this.executor = executor;
+        this.maxRetry = maxRetry;
+    }
+
+    /**
+     * 下载到文件
+     *
+     * @param request 原始请求
+     * @param target  目标文件
+     * @return 写入的字节数
+     */
+    long download(Request request, Path target) throws IOException {
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return download(request, channel);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
+    private long download(Request request, FileChannel channel) throws IOException {
+        long chunkSize = options.getChunkSize();
+        try (Response probe = httpUtil.send(request.newBuilder().header("Range", "bytes=0-" + (chunkSize - 1)).build())) {
+            if (!probe.isSuccessful()) {
+                ResponseBody body = probe.body();
+                throw new IOException("okhttp HTTP Error: " + probe.code() + ", Body: " + (body != null ? body.string() : "null"));
+            }
+            if (probe.body() == null) {
+                throw new IOException("okhttp HTTP Error: " + probe.code() + ", Body: null");
+            }
+            // 不支持Range，退化为单连接下载
+            if (probe.code() != 206) {
+                return write(probe.body().source(), channel, new long[1], Long.MAX_VALUE);
+            }
+            long[] range = parseContentRange(probe.header("Content-Range"));
+            if (range == null || range[0] != 0 || range[2] < 0) {
+                throw new IOException("Invalid Content-Range: " + probe.header("Content-Range"));
+            }
+            long total = range[2];
+            String etag = probe.header("ETag");
+            if (etag != null && etag.startsWith("W/")) {
+                etag = null;
+            }
+            String validator = etag != null ? etag : probe.header("Last-Modified");
+
+            // 其余分块并发下载，当前线程写完探测分块后也参与下载
+            List<long[]> chunks = new ArrayList<>();
+            for (long start = range[1] + 1; start < total; start += chunkSize) {
+                chunks.add(new long[]{start, Math.min(start + chunkSize, total) - 1});
+            }
+            Worker worker = new Worker(request, channel, chunks, total, etag, validator, Deadline.current());
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 1; i < Math.min(options.getParallelism(), chunks.size() + 1); i++) {
+                futures.add(CompletableFuture.runAsync(worker, executor));
+            }
+
+            try {
+                long[] position = new long[1];
+                try {
+                    write(probe.body().source(), channel, position, range[1]);
+                } catch (IOException e) {
+                    // 探测分块读取中断，与其它分块一样从已写入的位置续传
+                }
+                if (position[0] != range[1] + 1) {
+                    worker.fetch(new long[]{0, range[1]}, position);
+                }
+                worker.run();
+            } catch (IOException | RuntimeException e) {
+                worker.failed = true;
+                throw e;
+            } finally {
+                for (CompletableFuture<Void> future : futures) {
+                    try {
+                        future.join();
+                    } catch (CompletionException e) {
+                        worker.failed = true;
+                    }
+                }
+            }
+            if (worker.error instanceof IOException) {
+                throw (IOException) worker.error;
+            }
+            if (worker.error != null) {
+                throw (RuntimeException) worker.error;
+            }
+            if (channel.size() != total) {
+                throw new IOException("Downloaded " + channel.size() + " bytes, expected " + total);
+            }
+            return total;
+        }
+    }
+
+    /**
+     * 从source读取并写入文件的指定位置，每次写入后更新 position[0]，读取中途失败时调用方仍能拿到已写入的位置
+     *
+     * @param position 写入位置，长度为1的数组
+     * @param end      最后一个字节的位置(包含)
+     * @return 写入后的下一个位置
+     */
+    private static long write(BufferedSource source, FileChannel channel, long[] position, long end) throws IOException {
+        byte[] bytes = new byte[BUFFER_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long limit = end == Long.MAX_VALUE ? Long.MAX_VALUE : end + 1;
+        int read;
+        while (position[0] < limit
+                && (read = source.read(bytes, 0, (int) Math.min(bytes.length, limit - position[0]))) != -1) {
+            ((Buffer) buffer).position(0).limit(read);
+            while (buffer.hasRemaining()) {
+                position[0] += channel.write(buffer, position[0]);
+            }
+        }
+        return position[0];
+    }
+
+    /**
+     * 可以重试的状态码：408、429 和 5xx
+     */
+    private static boolean isRetryable(int code) {
+        return code == 408 || code == 429 || code >= 500;
+    }
+
+    /**
+     * 解析 Content-Range: bytes 0-99/1000
+     *
+     * @return [start, end, total]，total未知时为-1
+     */
+    private static long[] parseContentRange(String contentRange) {
+        if (contentRange == null || !contentRange.startsWith("bytes ")) {
+            return null;
+        }
+        try {
+            int dash = contentRange.indexOf('-');
+            int slash = contentRange.indexOf('/');
+            long start = Long.parseLong(contentRange.substring(6, dash).trim());
+            long end = Long.parseLong(contentRange.substring(dash + 1, slash).trim());
+            String total = contentRange.substring(slash + 1).trim();
+            return new long[]{start, end, "*".equals(total) ? -1 : Long.parseLong(total)};
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 不再重试的错误
+     */
+    private static class FatalDownloadException extends IOException {
+        FatalDownloadException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 资源在下载过程中发生变化，不再重试
+     */
+    private static final class ResourceChangedException extends FatalDownloadException {
+        ResourceChangedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 下载线程，从共享队列中领取分块
+     */
+    private final class Worker implements Runnable {
+        private final Request request;
+        private final FileChannel channel;
+        private final List<long[]> chunks;
+        private final long total;
+        /**
+         * 强ETag，没有时为null
+         */
+        private final String etag;
+        /**
+         * If-Range 使用的校验器：强ETag或 Last-Modified，都没有时为null
+         */
+        private final String validator;
+        private final Deadline deadline;
+        private final AtomicInteger next = new AtomicInteger();
+        private volatile boolean failed;
+        private volatile Exception error;
+
+        Worker(Request request, FileChannel channel, List<long[]> chunks, long total, String etag, String validator,
+               Deadline deadline) {
+            this.request = request;
+            this.channel = channel;
+            this.chunks = chunks;
+            this.total = total;
+            this.etag = etag;
+            this.validator = validator;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            Deadline.Scope scope = deadline == null ? null : deadline.attach();
+            try {
+                int index;
+                while (!failed && (index = next.getAndIncrement()) < chunks.size()) {
+                    long[] chunk = chunks.get(index);
+                    fetch(chunk, new long[]{chunk[0]});
+                }
+            } catch (IOException | RuntimeException e) {
+                failed = true;
+                error = e;
+            } finally {
+                if (scope != null) {
+                    scope.close();
+                }
+            }
+        }
+
+        /**
+         * 从 position 开始下载一个分块的剩余部分，中断后从已写入的位置续传；408、429、5xx 和网络错误按退避重试
+         *
+         * @param chunk    分块 [start, end]
+         * @param position 写入位置，长度为1的数组
+         */
+        private void fetch(long[] chunk, long[] position) throws IOException {
+            int attempt = 0;
+            while (true) {
+                Request.Builder builder = request.newBuilder().header("Range", "bytes=" + position[0] + "-" + chunk[1]);
+                if (validator != null) {
+                    builder.header("If-Range", validator);
+                }
+                try (Response response = httpUtil.send(builder.build())) {
+                    int code = response.code();
+                    if (code != 206) {
+                        if (isRetryable(code)) {
+                            throw new IOException("okhttp HTTP Error: " + code + " for range " + position[0] + "-" + chunk[1]);
+                        }
+                        // 200 表示 If-Range 校验失败，服务端返回了完整的新资源
+                        if (code == 200) {
+                            throw new ResourceChangedException("Resource changed during download: " + request.url());
+                        }
+                        throw new FatalDownloadException("okhttp HTTP Error: " + code + " for range "
+                                + position[0] + "-" + chunk[1]);
+                    }
+                    long[] range = parseContentRange(response.header("Content-Range"));
+                    if (range == null || range[0] != position[0] || range[2] != total
+                            || (etag != null && !etag.equals(response.header("ETag")))) {
+                        throw new ResourceChangedException("Resource changed during download: " + request.url());
+                    }
+                    write(response.body().source(), channel, position, chunk[1]);
+                    if (position[0] != chunk[1] + 1) {
+                        throw new EOFException("Unexpected end of chunk " + chunk[0] + "-" + chunk[1]);
+                    }
+                    return;
+                } catch (FatalDownloadException e) {
+                    throw e;
+                } catch (IOException e) {
+                    if (++attempt > maxRetry || failed || (deadline != null && deadline.isExpired())) {
+                        throw e;
+                    }
+                    backoff(attempt);
+                }
+            }
+        }
+
+        /**
+         * 指数退避，不超过截止时间
+         */
+        private void backoff(int attempt) throws IOException {
+            long millis = Math.min(MAX_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << Math.min(attempt - 1, 10));
+            if (deadline != null) {
+                millis = Math.min(millis, TimeUnit.NANOSECONDS.toMillis(deadline.remainingNanos()));
+            }
+            try {
+                Thread.sleep(Math.max(0, millis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while retrying download");
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.cy.easyhttp.util;
+
+/**
+ * 响应包装中的状态码表示失败
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public class ResponseEnvelopeException extends RuntimeException {
+
+    private final String status;
+    private final String errorMessage;
+
+    public ResponseEnvelopeException(String status, String errorMessage) {
+        super("Response envelope status " + status + (errorMessage != null ? ": " + errorMessage : ""));
+        this.status = status;
+        this.errorMessage = errorMessage;
+    }
+
+    /**
+     * @return 状态码，响应中没有状态码时为null
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * @return 响应中的错误信息，可为null
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+}
@@ -0,0 +1,116 @@
+package com.cy.easyhttp.util;
+
+import com.cy.easyhttp.annotation.param.JsonBody;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 流式JSON请求体，元素逐个序列化写入 sink，长度未知时okhttp使用分块传输编码
+ * <p>
+ * 数据源只能读取一次，因此是 one-shot 请求体，连接失败后不会自动重发。
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+final class StreamingJsonBody extends RequestBody {
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final MediaType NDJSON = MediaType.parse("application/x-ndjson; charset=utf-8");
+
+    private final Object source;
+    private final JsonBody.Format format;
+    private final ObjectMapper objectMapper;
+
+    StreamingJsonBody(Object source, JsonBody.Format format, ObjectMapper objectMapper) {
+        this.source = source;
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 是否为支持流式发送的参数类型
+     */
+    static boolean isStreaming(Object body) {
+        return body instanceof Stream || body instanceof Iterator || PublisherIterator.isPublisher(body);
+    }
+
+    @Override
+    public MediaType contentType() {
+        return format == JsonBody.Format.NDJSON ? NDJSON : JSON;
+    }
+
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    @Override
+    public boolean isOneShot() {
+        return true;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        Iterator<?> iterator = iterator();
+        // 每个元素写完后不单独flush，由okio按段发送
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(sink.outputStream())) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // 数据源出错时不能补全结尾，否则服务端会把不完整的数据当成完整的请求体
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            // NDJSON 的换行由下面显式写入，不使用默认的空格分隔顶层值
+            generator.setRootValueSeparator(null);
+            boolean array = format == JsonBody.Format.ARRAY;
+            if (array) {
+                generator.writeStartArray();
+            }
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                if (!array) {
+                    generator.writeRaw('\n');
+                }
+            }
+            if (array) {
+                generator.writeEndArray();
+            }
+        } finally {
+            close(iterator);
+        }
+    }
+
+    private Iterator<?> iterator() {
+        if (source instanceof Stream) {
+            return ((Stream<?>) source).iterator();
+        }
+        if (source instanceof Iterator) {
+            return (Iterator<?>) source;
+        }
+        return new PublisherIterator(source);
+    }
+
+    /**
+     * 关闭数据源，发送失败时取消订阅
+     */
+    private void close(Iterator<?> iterator) throws IOException {
+        if (source instanceof Stream) {
+            ((Stream<?>) source).close();
+        } else if (iterator instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) iterator).close();
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+    }
+}
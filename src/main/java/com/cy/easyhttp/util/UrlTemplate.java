@@ -0,0 +1,333 @@
+package com.cy.easyhttp.util;
+
+import okhttp3.HttpUrl;
+
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预编译的URL模板
+ * <p>
+ * 每个接口方法只解析一次，拆分为字面量片段和变量片段；请求时直接写入 {@link HttpUrl.Builder}，
+ * 路径变量按 path segment 规则编码，查询参数按 query 规则编码，避免每次请求都做正则替换和二次解析URL。
+ * 模板中的字面量视为已编码，如 /v{version}%2Bbeta 中的 %2B 原样保留，只编码变量的值。
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public final class UrlTemplate {
+
+    /**
+     * 与 {@link HttpUrl.Builder#addPathSegment} 相同的需要编码的字符
+     */
+    private static final String PATH_SEGMENT_ENCODE_SET = " \"<>^`{}|/\\?#";
+    /**
+     * 与 {@link HttpUrl.Builder#addQueryParameter} 相同的需要编码的字符
+     */
+    private static final String QUERY_COMPONENT_ENCODE_SET = " !\"#$&'(),/:;<=>?@[]\\^`{|}~+";
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * 预解析的基础URL
+     */
+    private final HttpUrl baseUrl;
+    /**
+     * 路径片段
+     */
+    private final Part[] pathSegments;
+    /**
+     * 模板中直接写死的查询参数,如 /path?type=1
+     */
+    private final String[] queryNames;
+    private final Part[] queryValues;
+    /**
+     * 方法参数上的 @QueryParam 绑定
+     */
+    private final QueryBinding[] queryBindings;
+    /**
+     * 原始路径模板，用于日志
+     */
+    private final String path;
+
+    private UrlTemplate(String path, HttpUrl baseUrl, Part[] pathSegments, String[] queryNames, Part[] queryValues,
+                        QueryBinding[] queryBindings) {
+        this.baseUrl = baseUrl;
+        this.pathSegments = pathSegments;
+        this.queryNames = queryNames;
+        this.queryValues = queryValues;
+        this.queryBindings = queryBindings;
+        this.path = path;
+    }
+
+    /**
+     * 编译URL模板
+     *
+     * @param baseUrl       预解析的基础URL
+     * @param path          请求路径,如 /user/{id}?type=1
+     * @param pathVariables 路径变量名 -> 方法参数下标
+     * @param queryBindings 方法参数上的查询参数绑定
+     * @return 编译后的模板
+     */
+    public static UrlTemplate compile(HttpUrl baseUrl, String path, Map<String, Integer> pathVariables,
+                                      List<QueryBinding> queryBindings) {
+        if (baseUrl == null) {
+            throw new IllegalArgumentException("baseUrl is required and must be a valid http(s) url");
+        }
+        String pathPart = path;
+        String queryPart = null;
+        int q = path.indexOf('?');
+        if (q >= 0) {
+            pathPart = path.substring(0, q);
+            queryPart = path.substring(q + 1);
+        }
+        if (pathPart.startsWith("/")) {
+            pathPart = pathPart.substring(1);
+        }
+
+        // 空路径也追加一个空片段，与 baseUrl + "/" + path 的拼接结果一致，保留结尾的 /
+        List<Part> segments = new ArrayList<>();
+        for (String segment : pathPart.split("/", -1)) {
+            segments.add(Part.parse(segment, pathVariables));
+        }
+
+        List<String> names = new ArrayList<>();
+        List<Part> values = new ArrayList<>();
+        if (queryPart != null && !queryPart.isEmpty()) {
+            for (String pair : queryPart.split("&")) {
+                if (pair.isEmpty()) {
+                    continue;
+                }
+                int eq = pair.indexOf('=');
+                names.add(eq < 0 ? pair : pair.substring(0, eq));
+                values.add(eq < 0 ? null : Part.parse(pair.substring(eq + 1), pathVariables));
+            }
+        }
+
+        return new UrlTemplate(path, baseUrl,
+                segments.toArray(new Part[0]),
+                names.toArray(new String[0]),
+                values.toArray(new Part[0]),
+                queryBindings.toArray(new QueryBinding[0]));
+    }
+
+    /**
+     * @return 原始路径模板，如 /user/{id}
+     */
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    /**
+     * 根据方法参数展开模板
+     *
+     * @param args 方法参数
+     * @return 完整的请求URL
+     */
+    public HttpUrl expand(Object[] args) {
+        return expandInto(baseUrl.newBuilder(), args).build();
+    }
+
+    /**
+     * 根据方法参数展开模板，写入给定的 builder
+     *
+     * @param builder url构建器
+     * @param args    方法参数
+     * @return 传入的 builder
+     */
+    public HttpUrl.Builder expandInto(HttpUrl.Builder builder, Object[] args) {
+        for (Part segment : pathSegments) {
+            if (segment.isLiteral()) {
+                builder.addEncodedPathSegment(segment.literal);
+            } else if (segment.isVariable()) {
+                builder.addPathSegment(segment.value(args));
+            } else {
+                builder.addEncodedPathSegment(segment.expand(args, PATH_SEGMENT_ENCODE_SET));
+            }
+        }
+        for (int i = 0; i < queryNames.length; i++) {
+            Part value = queryValues[i];
+            if (value == null) {
+                builder.addEncodedQueryParameter(queryNames[i], null);
+            } else if (value.isLiteral()) {
+                builder.addEncodedQueryParameter(queryNames[i], value.literal);
+            } else if (value.isVariable()) {
+                builder.addQueryParameter(queryNames[i], value.value(args));
+            } else {
+                builder.addEncodedQueryParameter(queryNames[i], value.expand(args, QUERY_COMPONENT_ENCODE_SET));
+            }
+        }
+        for (QueryBinding binding : queryBindings) {
+            binding.apply(builder, args[binding.index]);
+        }
+        return builder;
+    }
+
+    /**
+     * 一段由字面量和变量组成的模板
+     */
+    private static final class Part {
+        /**
+         * 纯字面量时不为空
+         */
+        final String literal;
+        /**
+         * 字面量片段，长度 = 变量数 + 1
+         */
+        final String[] literals;
+        final String[] names;
+        final int[] indexes;
+        /**
+         * 字面量总长度，用于预估 StringBuilder 容量
+         */
+        final int literalLength;
+
+        private Part(String literal, String[] literals, String[] names, int[] indexes, int literalLength) {
+            this.literal = literal;
+            this.literals = literals;
+            this.names = names;
+            this.indexes = indexes;
+            this.literalLength = literalLength;
+        }
+
+        static Part parse(String text, Map<String, Integer> variables) {
+            List<String> literals = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            int length = 0;
+            int from = 0;
+            while (true) {
+                int open = text.indexOf('{', from);
+                int close = open < 0 ? -1 : text.indexOf('}', open + 1);
+                if (close < 0) {
+                    break;
+                }
+                literals.add(text.substring(from, open));
+                length += open - from;
+                names.add(text.substring(open + 1, close));
+                from = close + 1;
+            }
+            if (names.isEmpty()) {
+                return new Part(text, null, null, null, text.length());
+            }
+            literals.add(text.substring(from));
+            length += text.length() - from;
+
+            int[] indexes = new int[names.size()];
+            for (int i = 0; i < indexes.length; i++) {
+                Integer index = variables.get(names.get(i));
+                if (index == null) {
+                    throw new IllegalArgumentException("No value provided for path variable: {" + names.get(i) + "}");
+                }
+                indexes[i] = index;
+            }
+            return new Part(null, literals.toArray(new String[0]), names.toArray(new String[0]), indexes, length);
+        }
+
+        boolean isLiteral() {
+            return literal != null;
+        }
+
+        /**
+         * @return 是否只有一个变量，没有字面量
+         */
+        boolean isVariable() {
+            return names.length == 1 && literalLength == 0;
+        }
+
+        /**
+         * @return 单个变量未编码的值
+         */
+        String value(Object[] args) {
+            return valueOf(names[0], args[indexes[0]]);
+        }
+
+        /**
+         * 字面量原样保留，变量的值按 encodeSet 编码
+         *
+         * @return 编码后的片段
+         */
+        String expand(Object[] args, String encodeSet) {
+            StringBuilder sb = new StringBuilder(literalLength + 16 * names.length);
+            for (int i = 0; i < names.length; i++) {
+                sb.append(literals[i]);
+                encode(sb, valueOf(names[i], args[indexes[i]]), encodeSet);
+            }
+            return sb.append(literals[names.length]).toString();
+        }
+
+        private static String valueOf(String name, Object value) {
+            if (value == null) {
+                throw new IllegalArgumentException("Path variable '" + name + "' cannot be null");
+            }
+            return value.toString();
+        }
+    }
+
+    /**
+     * 百分号编码，控制字符、非ASCII字符、% 和 encodeSet 中的字符按UTF-8字节编码
+     */
+    private static void encode(StringBuilder sb, String value, String encodeSet) {
+        for (int i = 0, n = value.length(); i < n; ) {
+            int c = value.codePointAt(i);
+            int next = i + Character.charCount(c);
+            if (c < 0x20 || c >= 0x7f || c == '%' || encodeSet.indexOf(c) >= 0) {
+                for (byte b : value.substring(i, next).getBytes(StandardCharsets.UTF_8)) {
+                    sb.append('%').append(HEX[(b >> 4) & 0xf]).append(HEX[b & 0xf]);
+                }
+            } else {
+                sb.append((char) c);
+            }
+            i = next;
+        }
+    }
+
+    /**
+     * 方法参数与查询参数的绑定
+     */
+    public static final class QueryBinding {
+        private final String name;
+        private final int index;
+        private final boolean required;
+
+        public QueryBinding(String name, int index, boolean required) {
+            this.name = name;
+            this.index = index;
+            this.required = required;
+        }
+
+        /**
+         * 写入查询参数，集合和数组展开为重复的key,如 ?id=1&id=2
+         */
+        void apply(HttpUrl.Builder builder, Object value) {
+            if (value == null) {
+                if (required) {
+                    throw new IllegalArgumentException("Query parameter '" + name + "' is required");
+                }
+                return;
+            }
+            if (value instanceof Iterable) {
+                for (Object element : (Iterable<?>) value) {
+                    if (element != null) {
+                        builder.addQueryParameter(name, element.toString());
+                    }
+                }
+            } else if (value.getClass().isArray()) {
+                for (int i = 0, n = Array.getLength(value); i < n; i++) {
+                    Object element = Array.get(value, i);
+                    if (element != null) {
+                        builder.addQueryParameter(name, element.toString());
+                    }
+                }
+            } else {
+                builder.addQueryParameter(name, value.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.cy.easyhttp.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 以输入流的形式读取响应体，每次读取最多等待到截止时间
+ * <p>
+ * {@link HttpResponse.BodyHandlers#ofInputStream()} 只受 HttpRequest.timeout 约束到收到响应头为止，
+ * 读取响应体可能无限阻塞；这里按消费进度逐批 request，等待超时后取消订阅并抛出 {@link InterruptedIOException}。
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+final class DeadlineBodySubscriber extends InputStream implements HttpResponse.BodySubscriber<InputStream> {
+
+    /**
+     * 结束标记，按引用比较
+     */
+    private static final List<ByteBuffer> LAST = new ArrayList<>(0);
+
+    private final BlockingQueue<List<ByteBuffer>> queue = new LinkedBlockingQueue<>();
+    /**
+     * 截止时间 System.nanoTime()，0 表示不限制
+     */
+    private final long deadline;
+    private volatile Flow.Subscription subscription;
+    private volatile Throwable error;
+    private volatile boolean closed;
+
+    private Iterator<ByteBuffer> buffers = Collections.emptyIterator();
+    private ByteBuffer current;
+    private boolean eof;
+
+    DeadlineBodySubscriber(long deadline) {
+        this.deadline = deadline;
+    }
+
+    @Override
+    public CompletionStage<InputStream> getBody() {
+        return CompletableFuture.completedFuture(this);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        if (closed) {
+            subscription.cancel();
+        } else {
+            subscription.request(1);
+        }
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> item) {
+        queue.offer(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        error = throwable;
+        queue.offer(LAST);
+    }
+
+    @Override
+    public void onComplete() {
+        queue.offer(LAST);
+    }
+
+    @Override
+    public int read() throws IOException {
+        ByteBuffer buffer = current();
+        return buffer == null ? -1 : buffer.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        ByteBuffer buffer = current();
+        if (buffer == null) {
+            return -1;
+        }
+        int n = Math.min(len, buffer.remaining());
+        buffer.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current == null ? 0 : current.remaining();
+    }
+
+    /**
+     * 取消订阅，未读完的响应体被丢弃
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            Flow.Subscription s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
+        }
+    }
+
+    /**
+     * @return 还有剩余字节的缓冲区，读完时返回null
+     */
+    private ByteBuffer current() throws IOException {
+        if (closed) {
+            throw new IOException("closed");
+        }
+        while (current == null || !current.hasRemaining()) {
+            if (buffers.hasNext()) {
+                current = buffers.next();
+                continue;
+            }
+            if (eof) {
+                return null;
+            }
+            List<ByteBuffer> next = take();
+            if (next == LAST) {
+                eof = true;
+                if (error != null) {
+                    throw error instanceof IOException ? (IOException) error : new IOException(error);
+                }
+                return null;
+            }
+            buffers = next.iterator();
+            subscription.request(1);
+        }
+        return current;
+    }
+
+    private List<ByteBuffer> take() throws IOException {
+        try {
+            if (deadline == 0) {
+                return queue.take();
+            }
+            List<ByteBuffer> next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (next == null) {
+                close();
+                throw new InterruptedIOException("timeout");
+            }
+            return next;
+        } catch (InterruptedException e) {
+            close();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted");
+        }
+    }
+}
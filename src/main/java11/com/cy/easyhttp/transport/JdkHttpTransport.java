@@ -0,0 +1,213 @@
+package com.cy.easyhttp.transport;
+
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Pipe;
+import okio.Sink;
+import okio.Source;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 基于 java.net.http.HttpClient 的传输实现(Java 11+)
+ * <p>
+ * 长度已知的请求体一次性发送；one-shot 或长度未知的请求体(如流式JSON)通过管道边写边发，不在内存中缓存。
+ *
+ * @author cy
+ * @since v1.0.0
+ */
+public class JdkHttpTransport implements HttpTransport {
+
+    /**
+     * JDK HttpClient 不允许手动设置的请求头
+     */
+    private static final Set<String> RESTRICTED_HEADERS = new HashSet<>(Arrays.asList(
+            "connection", "content-length", "expect", "host", "upgrade"));
+
+    /**
+     * 流式请求体管道的缓冲字节数
+     */
+    private static final long PIPE_BUFFER_SIZE = 64 * 1024;
+
+    private final HttpClient httpClient;
+
+    public JdkHttpTransport() {
+        this(HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build());
+    }
+
+    public JdkHttpTransport(HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public Response execute(Request request) throws IOException {
+        return send(request, 0);
+    }
+
+    /**
+     * 超时覆盖整个调用：HttpRequest.timeout 约束到收到响应头，之后读取响应体的每次等待不超过剩余时间
+     */
+    @Override
+    public Response execute(Request request, long timeoutNanos) throws IOException {
+        return send(request, System.nanoTime() + Math.max(1, timeoutNanos));
+    }
+
+    /**
+     * @param deadline 截止时间 System.nanoTime()，0 表示不限制
+     */
+    private Response send(Request request, long deadline) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request.url().uri());
+        if (deadline != 0) {
+            builder.timeout(Duration.ofNanos(Math.max(1, deadline - System.nanoTime())));
+        }
+        Headers headers = request.headers();
+        for (int i = 0, n = headers.size(); i < n; i++) {
+            if (!RESTRICTED_HEADERS.contains(headers.name(i).toLowerCase())) {
+                builder.header(headers.name(i), headers.value(i));
+            }
+        }
+
+        RequestBody body = request.body();
+        Pipe pipe = null;
+        if (body == null) {
+            builder.method(request.method(), HttpRequest.BodyPublishers.noBody());
+        } else {
+            if (body.contentType() != null && request.header("Content-Type") == null) {
+                builder.header("Content-Type", body.contentType().toString());
+            }
+            if (body.isOneShot() || body.contentLength() < 0) {
+                // 流式请求体：HttpClient 从管道读取，调用线程同时写入，长度未知时使用分块传输编码
+                pipe = new Pipe(PIPE_BUFFER_SIZE);
+                Source source = pipe.source();
+                builder.method(request.method(),
+                        HttpRequest.BodyPublishers.ofInputStream(() -> Okio.buffer(source).inputStream()));
+            } else {
+                Buffer buffer = new Buffer();
+                body.writeTo(buffer);
+                builder.method(request.method(), HttpRequest.BodyPublishers.ofByteArray(buffer.readByteArray()));
+            }
+        }
+
+        CompletableFuture<HttpResponse<InputStream>> future =
+                httpClient.sendAsync(builder.build(), info -> new DeadlineBodySubscriber(deadline));
+        if (pipe != null) {
+            writeBody(body, pipe, future, deadline);
+        }
+        return toResponse(request, await(future, deadline));
+    }
+
+    /**
+     * 在调用线程上把请求体写入管道；写入失败时取消管道，使 HttpClient 中止请求而不是把不完整的请求体当作结束
+     */
+    private static void writeBody(RequestBody body, Pipe pipe, CompletableFuture<?> future, long deadline)
+            throws IOException {
+        // 服务端提前响应或请求失败时不再等待管道空间
+        future.whenComplete((response, error) -> pipe.cancel());
+        Sink sink = pipe.sink();
+        if (deadline != 0) {
+            sink.timeout().deadlineNanoTime(deadline);
+        }
+        try (BufferedSink buffered = Okio.buffer(sink)) {
+            body.writeTo(buffered);
+        } catch (IOException | RuntimeException e) {
+            pipe.cancel();
+            future.cancel(true);
+            if (future.isDone() && !future.isCancelled()) {
+                // 服务端已经响应，以响应为准
+                return;
+            }
+            throw e;
+        }
+    }
+
+    private static HttpResponse<InputStream> await(CompletableFuture<HttpResponse<InputStream>> future, long deadline)
+            throws IOException {
+        try {
+            return deadline == 0 ? future.get() : future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            InterruptedIOException timeout = new InterruptedIOException("timeout");
+            timeout.initCause(e);
+            throw timeout;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("request interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof HttpTimeoutException) {
+                InterruptedIOException timeout = new InterruptedIOException("timeout");
+                timeout.initCause(cause);
+                throw timeout;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        } catch (CancellationException e) {
+            throw new IOException("request canceled", e);
+        }
+    }
+
+    /**
+     * 转换为okhttp响应模型
+     */
+    private static Response toResponse(Request request, HttpResponse<InputStream> response) {
+        Headers.Builder headers = new Headers.Builder();
+        for (Map.Entry<String, List<String>> entry : response.headers().map().entrySet()) {
+            if (entry.getKey().startsWith(":")) {
+                continue;
+            }
+            for (String value : entry.getValue()) {
+                headers.addUnsafeNonAscii(entry.getKey(), value);
+            }
+        }
+        String contentType = response.headers().firstValue("Content-Type").orElse(null);
+        long contentLength = response.headers().firstValueAsLong("Content-Length").orElse(-1L);
+        ResponseBody body = ResponseBody.create(
+                Okio.buffer(Okio.source(response.body())),
+                contentType == null ? null : MediaType.parse(contentType),
+                contentLength);
+
+        return new Response.Builder()
+                .request(request)
+                .protocol(response.version() == HttpClient.Version.HTTP_2 ? Protocol.HTTP_2 : Protocol.HTTP_1_1)
+                .code(response.statusCode())
+                .message("")
+                .headers(headers.build())
+                .body(body)
+                .build();
+    }
+
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+}
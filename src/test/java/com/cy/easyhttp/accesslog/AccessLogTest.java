@@ -0,0 +1,184 @@
+package com.cy.easyhttp.accesslog;
+
+import com.cy.easyhttp.HttpClient;
+import com.cy.easyhttp.HttpClientConfiguration;
+import com.cy.easyhttp.HttpClientProxyFactory;
+import com.cy.easyhttp.annotation.method.Get;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccessLogTest {
+
+    @HttpClient
+    interface LogApi {
+        @Get("/ok")
+        String ok();
+
+        @Get("/fail")
+        String fail();
+
+        @Get("/slow")
+        String slow();
+    }
+
+    @TempDir
+    Path dir;
+
+    private MockWebServer server;
+    private final List<String> lines = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                switch (request.getPath()) {
+                    case "/fail":
+                        return new MockResponse().setResponseCode(500).setBody("boom");
+                    case "/slow":
+                        return new MockResponse().setBody("slow").setHeadersDelay(200, TimeUnit.MILLISECONDS);
+                    default:
+                        return new MockResponse().setBody("ok");
+                }
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private LogApi api(AccessLog accessLog) {
+        return HttpClientProxyFactory.create(LogApi.class, HttpClientConfiguration.newBuilder()
+                .baseUrl(server.url("/").toString()).accessLog(accessLog).build());
+    }
+
+    @Test
+    void sampledCallsAreWritten() {
+        AccessLog accessLog = AccessLog.newBuilder(line -> lines.add(line.toString())).build();
+        LogApi api = api(accessLog);
+        api.ok();
+        api.ok();
+        accessLog.close();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).matches("\\S+Z GET /ok LogApi\\.ok 200 2 \\d+\\.\\d{3}ms"), lines.get(0));
+    }
+
+    @Test
+    void unsampledCallsAreSkippedButFailuresAreKept() {
+        AccessLog accessLog = AccessLog.newBuilder(line -> lines.add(line.toString())).sampleRate(0).build();
+        LogApi api = api(accessLog);
+        for (int i = 0; i < 10; i++) {
+            api.ok();
+        }
+        assertThrows(RuntimeException.class, api::fail);
+        accessLog.close();
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains(" LogApi.fail 500 "), lines.get(0));
+        assertTrue(lines.get(0).contains(" error="), lines.get(0));
+    }
+
+    @Test
+    void slowOnlyKeepsSlowCalls() {
+        AccessLog accessLog = AccessLog.newBuilder(line -> lines.add(line.toString()))
+                .slowOnly(true).slowThreshold(100).logErrors(false).build();
+        LogApi api = api(accessLog);
+        api.ok();
+        api.slow();
+        assertThrows(RuntimeException.class, api::fail);
+        accessLog.close();
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains(" LogApi.slow 200 "), lines.get(0));
+    }
+
+    @Test
+    void fullBufferDropsWithoutBlockingCallers() throws InterruptedException {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AccessLog accessLog = AccessLog.newBuilder(line -> {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            lines.add(line.toString());
+        }).bufferSize(2).build();
+        LogApi api = api(accessLog);
+        api.ok();
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        // 后台线程卡在写入，缓冲区只能再容纳两条
+        for (int i = 0; i < 9; i++) {
+            api.ok();
+        }
+        assertEquals(7, accessLog.getDropped());
+        release.countDown();
+        accessLog.close();
+        assertEquals(3, accessLog.getWritten());
+        assertEquals(3, lines.size());
+    }
+
+    @Test
+    void rollingFileSinkRotatesAndKeepsHistory() throws IOException {
+        Path file = dir.resolve("logs").resolve("access.log");
+        RollingFileSink sink = new RollingFileSink(file, 100, 2);
+        for (int i = 0; i < 10; i++) {
+            sink.write(line(i));
+        }
+        sink.close();
+        // 每行31字节，每个文件3行；最早的3行超出保留数量被删除
+        assertEquals(Collections.singletonList(line(9)), read(file));
+        assertEquals(Arrays.asList(line(6), line(7), line(8)), read(dir.resolve("logs/access.log.1")));
+        assertEquals(Arrays.asList(line(3), line(4), line(5)), read(dir.resolve("logs/access.log.2")));
+        assertFalse(Files.exists(dir.resolve("logs/access.log.3")));
+    }
+
+    @Test
+    void rollingFileSinkCountsExistingContent() throws IOException {
+        Path file = dir.resolve("access.log");
+        RollingFileSink sink = new RollingFileSink(file, 100, 1);
+        sink.write(line(0));
+        sink.write(line(1));
+        sink.close();
+        // 重新打开后追加，已有内容计入大小
+        sink = new RollingFileSink(file, 100, 1);
+        sink.write(line(2));
+        sink.write(line(3));
+        sink.close();
+        assertEquals(Collections.singletonList(line(3)), read(file));
+        assertEquals(Arrays.asList(line(0), line(1), line(2)), read(dir.resolve("access.log.1")));
+    }
+
+    private static String line(int i) {
+        return String.format("line-%024d", i);
+    }
+
+    private static List<String> read(Path file) throws IOException {
+        return Files.readAllLines(file, StandardCharsets.UTF_8);
+    }
+}
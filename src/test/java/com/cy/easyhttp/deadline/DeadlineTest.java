@@ -0,0 +1,135 @@
+package com.cy.easyhttp.deadline;
+
+import com.cy.easyhttp.HttpClient;
+import com.cy.easyhttp.HttpClientConfiguration;
+import com.cy.easyhttp.HttpClientProxyFactory;
+import com.cy.easyhttp.annotation.method.Get;
+import com.cy.easyhttp.annotation.method.Timeout;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadlineTest {
+
+    private static final String HEADER = "X-Request-Timeout";
+
+    @HttpClient
+    interface SlowApi {
+        @Get("/slow")
+        Map<String, Object> get();
+
+        @Get("/slow")
+        @Timeout(100)
+        Map<String, Object> shortTimeout();
+
+        @Get("/slow")
+        @Timeout(value = 5, unit = TimeUnit.SECONDS)
+        Map<String, Object> longTimeout();
+
+        @Get("/slow")
+        CompletableFuture<Map<String, Object>> getAsync();
+    }
+
+    private MockWebServer server;
+    private SlowApi api;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        api = HttpClientProxyFactory.create(SlowApi.class, HttpClientConfiguration.newBuilder()
+                .baseUrl(server.url("/").toString()).deadlineHeader(HEADER).build());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private static MockResponse slow() {
+        return new MockResponse().setBody("{}").setHeadersDelay(2, TimeUnit.SECONDS);
+    }
+
+    private long headerMillis() throws InterruptedException {
+        RecordedRequest request = server.takeRequest(5, TimeUnit.SECONDS);
+        return Long.parseLong(request.getHeader(HEADER));
+    }
+
+    @Test
+    void callFailsWhenDeadlineExpires() {
+        server.enqueue(slow());
+        long start = System.nanoTime();
+        try (Deadline.Scope ignored = Deadline.after(200, TimeUnit.MILLISECONDS).attach()) {
+            assertThrows(DeadlineExceededException.class, api::get);
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void expiredDeadlineIsNotSent() {
+        try (Deadline.Scope ignored = Deadline.after(0, TimeUnit.MILLISECONDS).attach()) {
+            assertThrows(DeadlineExceededException.class, api::get);
+        }
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    void methodTimeoutAppliesWithoutCallerDeadline() {
+        server.enqueue(slow());
+        long start = System.nanoTime();
+        assertThrows(DeadlineExceededException.class, api::shortTimeout);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void methodTimeoutWinsWhenEarlier() throws InterruptedException {
+        server.enqueue(slow());
+        try (Deadline.Scope ignored = Deadline.after(5, TimeUnit.SECONDS).attach()) {
+            assertThrows(DeadlineExceededException.class, api::shortTimeout);
+        }
+        long millis = headerMillis();
+        assertTrue(millis > 0 && millis <= 100, "header " + millis);
+    }
+
+    @Test
+    void callerDeadlineWinsWhenEarlier() throws InterruptedException {
+        server.enqueue(slow());
+        try (Deadline.Scope ignored = Deadline.after(300, TimeUnit.MILLISECONDS).attach()) {
+            assertThrows(DeadlineExceededException.class, api::longTimeout);
+        }
+        long millis = headerMillis();
+        assertTrue(millis > 0 && millis <= 300, "header " + millis);
+    }
+
+    @Test
+    void headerIsOnlySentWithDeadline() throws InterruptedException {
+        server.enqueue(new MockResponse().setBody("{}"));
+        api.get();
+        assertNull(server.takeRequest(5, TimeUnit.SECONDS).getHeader(HEADER));
+    }
+
+    @Test
+    void deadlineFollowsAsyncCalls() throws Exception {
+        server.enqueue(new MockResponse().setBody("{}"));
+        CompletableFuture<Map<String, Object>> future;
+        try (Deadline.Scope ignored = Deadline.after(2, TimeUnit.SECONDS).attach()) {
+            future = api.getAsync();
+        }
+        future.get(5, TimeUnit.SECONDS);
+        long millis = headerMillis();
+        assertTrue(millis > 0 && millis <= 2000, "header " + millis);
+    }
+}
@@ -0,0 +1,125 @@
+package com.cy.easyhttp.dns;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CachingDnsTest {
+
+    private static final List<InetAddress> ADDRESSES = Collections.singletonList(InetAddress.getLoopbackAddress());
+
+    /**
+     * 手动推进的时钟
+     */
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private void advance(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private CachingDns.Builder builder(long ttl) {
+        return CachingDns.newBuilder()
+                .resolver(host -> {
+                    calls.incrementAndGet();
+                    return new DnsAnswer(ADDRESSES, ttl);
+                })
+                .executor(Runnable::run)
+                .ticker(clock::get);
+    }
+
+    @Test
+    void failedRefreshBacksOff() throws Exception {
+        AtomicBoolean failing = new AtomicBoolean();
+        CachingDns dns = CachingDns.newBuilder()
+                .resolver(host -> {
+                    calls.incrementAndGet();
+                    if (failing.get()) {
+                        throw new UnknownHostException(host);
+                    }
+                    return new DnsAnswer(ADDRESSES, 10);
+                })
+                .refreshAhead(0.01)
+                .refreshBackoff(5)
+                .executor(Runnable::run)
+                .ticker(clock::get)
+                .build();
+
+        dns.lookup("example.test");
+        failing.set(true);
+        advance(150);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(ADDRESSES, dns.lookup("example.test"));
+        }
+        // 一次刷新失败后进入退避，不会每次查询都刷新
+        assertEquals(2, calls.get());
+        assertEquals(1, dns.stats().getRefreshFailures());
+        // 退避结束后再次刷新
+        advance(5000);
+        dns.lookup("example.test");
+        assertEquals(3, calls.get());
+        assertEquals(2, dns.stats().getRefreshFailures());
+    }
+
+    @Test
+    void negativeTtlIsBoundedByMaxTtl() throws Exception {
+        CachingDns dns = builder(-1).minTtl(0).maxTtl(2).refreshAhead(1).build();
+
+        dns.lookup("forever.test");
+        advance(1999);
+        dns.lookup("forever.test");
+        assertEquals(1, calls.get());
+        assertEquals(1, dns.stats().getHits());
+        // 不过期的记录在 maxTtl 后重新解析
+        advance(1);
+        dns.lookup("forever.test");
+        assertEquals(2, calls.get());
+        assertEquals(2, dns.stats().getMisses());
+    }
+
+    @Test
+    void largeTtlIsCappedAndSmallTtlIsRaised() throws Exception {
+        CachingDns dns = builder(86400).minTtl(5).maxTtl(60).refreshAhead(1).build();
+        dns.lookup("long.test");
+        advance(59_999);
+        dns.lookup("long.test");
+        assertEquals(1, calls.get());
+        advance(1);
+        dns.lookup("long.test");
+        assertEquals(2, calls.get());
+
+        calls.set(0);
+        dns = builder(0).minTtl(5).maxTtl(60).refreshAhead(1).build();
+        dns.lookup("short.test");
+        advance(4_999);
+        dns.lookup("short.test");
+        assertEquals(1, calls.get());
+        advance(1);
+        dns.lookup("short.test");
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void refreshAheadReloadsInBackgroundWhileServingHits() throws Exception {
+        CachingDns dns = builder(10).refreshAhead(0.5).build();
+        dns.lookup("hot.test");
+        advance(4_999);
+        dns.lookup("hot.test");
+        assertEquals(1, calls.get());
+        advance(1);
+        dns.lookup("hot.test");
+        // 命中的查询触发刷新，不计为未命中
+        assertEquals(2, calls.get());
+        assertEquals(1, dns.stats().getMisses());
+        assertEquals(1, dns.stats().getRefreshes());
+    }
+}
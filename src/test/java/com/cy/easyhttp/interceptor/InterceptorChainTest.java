@@ -0,0 +1,99 @@
+package com.cy.easyhttp.interceptor;
+
+import com.cy.easyhttp.HttpClient;
+import com.cy.easyhttp.HttpClientConfiguration;
+import com.cy.easyhttp.HttpClientProxyFactory;
+import com.cy.easyhttp.annotation.method.Get;
+import com.cy.easyhttp.annotation.method.Post;
+import com.cy.easyhttp.annotation.param.JsonBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InterceptorChainTest {
+
+    @HttpClient
+    interface EchoApi {
+        @Get("/echo")
+        Map<String, Object> get(@JsonBody Map<String, Object> body);
+
+        @Post("/echo")
+        Map<String, Object> post(@JsonBody Map<String, Object> body);
+    }
+
+    private MockWebServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private EchoApi client(HttpInterceptor... interceptors) {
+        HttpClientConfiguration.Builder builder = HttpClientConfiguration.newBuilder().baseUrl(server.url("/").toString());
+        for (HttpInterceptor interceptor : interceptors) {
+            builder.addInterceptor(interceptor);
+        }
+        return HttpClientProxyFactory.create(EchoApi.class, builder.build());
+    }
+
+    @Test
+    void interceptorsRunInRegistrationOrder() throws InterruptedException {
+        server.enqueue(new MockResponse().setBody("{\"ok\":true}"));
+        List<String> calls = new ArrayList<>();
+        EchoApi api = client(
+                chain -> {
+                    calls.add("first");
+                    return chain.proceed(chain.request().newBuilder().header("X-Order", "first").build());
+                },
+                chain -> {
+                    calls.add("second:" + chain.request().header("X-Order"));
+                    return chain.proceed(chain.request());
+                });
+
+        assertEquals(Collections.singletonMap("ok", true), api.post(Collections.singletonMap("a", 1)));
+        assertEquals(2, calls.size());
+        assertEquals("first", calls.get(0));
+        assertEquals("second:first", calls.get(1));
+        assertEquals("first", server.takeRequest().getHeader("X-Order"));
+    }
+
+    @Test
+    void interceptorCanShortCircuit() {
+        EchoApi api = client(chain -> Collections.singletonMap("cached", true));
+        assertEquals(Collections.singletonMap("cached", true), api.post(null));
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    void getIgnoresJsonBody() throws InterruptedException {
+        server.enqueue(new MockResponse().setBody("{}"));
+        client().get(Collections.singletonMap("a", 1));
+        RecordedRequest request = server.takeRequest();
+        assertEquals("GET", request.getMethod());
+        assertEquals(0, request.getBodySize());
+    }
+
+    @Test
+    void postSendsJsonBody() throws InterruptedException {
+        server.enqueue(new MockResponse().setBody("{}"));
+        client().post(Collections.singletonMap("a", 1));
+        assertEquals("{\"a\":1}", server.takeRequest().getBody().readUtf8());
+    }
+}
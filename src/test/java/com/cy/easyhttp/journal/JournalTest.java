@@ -0,0 +1,234 @@
+package com.cy.easyhttp.journal;
+
+import com.cy.easyhttp.HttpClient;
+import com.cy.easyhttp.HttpClientConfiguration;
+import com.cy.easyhttp.HttpClientProxyFactory;
+import com.cy.easyhttp.annotation.method.FireAndForget;
+import com.cy.easyhttp.annotation.method.Post;
+import com.cy.easyhttp.trace.HttpSpan;
+import com.cy.easyhttp.trace.HttpTracer;
+import com.cy.easyhttp.trace.TraceContext;
+import com.cy.easyhttp.transport.OkHttpTransport;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalTest {
+
+    @HttpClient
+    interface EventApi {
+        @Post("/events")
+        @FireAndForget
+        void send();
+    }
+
+    @TempDir
+    Path dir;
+
+    private MockWebServer server;
+    private OkHttpTransport transport;
+    /**
+     * 路径 -> 固定返回的状态码，未配置的路径返回200
+     */
+    private final Map<String, Integer> statuses = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+    private final List<RecordedRequest> received = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                received.add(request);
+                counts.computeIfAbsent(request.getPath(), p -> new AtomicInteger()).incrementAndGet();
+                return new MockResponse().setResponseCode(statuses.getOrDefault(request.getPath(), 200));
+            }
+        });
+        server.start();
+        transport = new OkHttpTransport(new OkHttpClient());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private Request post(String path) {
+        return new Request.Builder().url(server.url(path)).post(RequestBody.create(path, null)).build();
+    }
+
+    private int count(String path) {
+        AtomicInteger count = counts.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    @Test
+    void failingRecordDoesNotBlockLaterRecords() {
+        statuses.put("/down", 503);
+        List<Integer> deadLetters = new CopyOnWriteArrayList<>();
+        try (Journal journal = Journal.newBuilder(dir).maxAttempts(5)
+                .deadLetterHandler((request, code, cause) -> deadLetters.add(code)).build()) {
+            journal.append(post("/down"));
+            journal.append(post("/a"));
+            journal.append(post("/b"));
+            journal.start(transport);
+
+            await(() -> journal.getDelivered() == 2);
+            assertEquals(0, journal.getDeadLettered());
+
+            await(() -> journal.getDeadLettered() == 1);
+            assertEquals(5, count("/down"));
+            assertEquals(4, journal.getRetries());
+            assertEquals(503, (int) deadLetters.get(0));
+        }
+    }
+
+    @Test
+    void rejectedRecordIsDeadLetteredWithoutRetry() {
+        statuses.put("/bad", 400);
+        try (Journal journal = Journal.newBuilder(dir).build()) {
+            journal.append(post("/bad"));
+            journal.start(transport);
+            await(() -> journal.getDeadLettered() == 1);
+            assertEquals(1, count("/bad"));
+            assertEquals(0, journal.getRetries());
+        }
+    }
+
+    @Test
+    void undeliveredRecordsSurviveReopen() {
+        try (Journal journal = Journal.newBuilder(dir).build()) {
+            journal.append(post("/a"));
+            journal.append(post("/b"));
+        }
+        try (Journal journal = Journal.newBuilder(dir).build()) {
+            journal.start(transport);
+            await(() -> journal.getDelivered() == 2);
+        }
+        // 游标已推进，再次打开不会重复发送
+        try (Journal journal = Journal.newBuilder(dir).build()) {
+            journal.start(transport);
+            journal.append(post("/c"));
+            await(() -> journal.getDelivered() == 1);
+        }
+        assertEquals(1, count("/a"));
+        assertEquals(1, count("/b"));
+        assertEquals(1, count("/c"));
+    }
+
+    @Test
+    void interceptorsRunBeforeAppend() {
+        Journal journal = Journal.newBuilder(dir).build();
+        try {
+            HttpClientConfiguration configuration = HttpClientConfiguration.newBuilder()
+                    .baseUrl(server.url("/").toString())
+                    .addInterceptor(chain -> chain.proceed(chain.request().newBuilder()
+                            .header("Authorization", "Bearer token").build()))
+                    .journal(journal)
+                    .build();
+            HttpClientProxyFactory.create(EventApi.class, configuration).send();
+            await(() -> journal.getDelivered() == 1);
+            assertEquals("Bearer token", received.get(0).getHeader("Authorization"));
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Test
+    void backgroundSendsAreTraced() {
+        AtomicInteger started = new AtomicInteger();
+        List<Integer> codes = new CopyOnWriteArrayList<>();
+        HttpTracer tracer = (metadata, parent) -> {
+            started.incrementAndGet();
+            return new HttpSpan() {
+                @Override
+                public TraceContext context() {
+                    return null;
+                }
+
+                @Override
+                public void onPhase(Phase phase, long startNanos, long endNanos) {
+                }
+
+                @Override
+                public void onStatus(int code) {
+                    codes.add(code);
+                }
+
+                @Override
+                public void end(Throwable error) {
+                }
+            };
+        };
+        try (Journal journal = Journal.newBuilder(dir).build()) {
+            HttpClientProxyFactory.create(EventApi.class, HttpClientConfiguration.newBuilder()
+                    .baseUrl(server.url("/").toString()).tracer(tracer).journal(journal).build()).send();
+            await(() -> journal.getDelivered() == 1);
+            // 调用线程写入日志一个span，后台发送一个span
+            assertEquals(2, started.get());
+            assertEquals(Collections.singletonList(200), codes);
+        }
+    }
+
+    @Test
+    void deliveredSegmentsAreDeleted() throws IOException {
+        try (Journal journal = Journal.newBuilder(dir).segmentSize(1024).maxBytes(4096).build()) {
+            journal.start(transport);
+            for (int i = 0; i < 100; i++) {
+                journal.append(post("/e" + i));
+            }
+            await(() -> journal.getDelivered() == 100);
+            journal.append(post("/last"));
+            await(() -> journal.getDelivered() == 101);
+            await(() -> segmentFiles() <= 2);
+            assertEquals(0, journal.getDeleteFailures());
+        }
+    }
+
+    private long segmentFiles() {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.toString().endsWith(".seg")).count();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.cy.easyhttp.ratelimit;
+
+import com.cy.easyhttp.HttpClient;
+import com.cy.easyhttp.HttpClientConfiguration;
+import com.cy.easyhttp.HttpClientProxyFactory;
+import com.cy.easyhttp.annotation.method.Get;
+import com.cy.easyhttp.annotation.method.RateLimit;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RateLimitTest {
+
+    @HttpClient
+    interface LimitedApi {
+        @Get("/ping")
+        @RateLimit(value = 1, mode = RateLimit.Mode.FAIL_FAST)
+        CompletableFuture<Map<String, Object>> pingAsync();
+
+        @Get("/ping")
+        @RateLimit(value = 100, mode = RateLimit.Mode.FAIL_FAST)
+        Map<String, Object> ping();
+    }
+
+    @HttpClient
+    @RateLimit(value = 1, mode = RateLimit.Mode.FAIL_FAST)
+    interface SharedApi {
+        @Get("/ping")
+        Map<String, Object> ping();
+    }
+
+    private MockWebServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private HttpClientConfiguration configuration() {
+        return HttpClientConfiguration.newBuilder().baseUrl(server.url("/").toString()).build();
+    }
+
+    @Test
+    void asyncRejectionFailsTheFuture() throws Exception {
+        server.enqueue(new MockResponse().setBody("{}"));
+        LimitedApi api = HttpClientProxyFactory.create(LimitedApi.class, configuration());
+        CompletableFuture<Map<String, Object>> first = api.pingAsync();
+        // 第二次调用不抛出，而是返回失败的future
+        CompletableFuture<Map<String, Object>> second = api.pingAsync();
+        ExecutionException e = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RateLimitExceededException.class, e.getCause());
+        assertEquals(0, first.get(5, TimeUnit.SECONDS).size());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void interfaceLimiterIsSharedAcrossProxies() {
+        server.enqueue(new MockResponse().setBody("{}"));
+        HttpClientConfiguration configuration = configuration();
+        SharedApi first = HttpClientProxyFactory.create(SharedApi.class, configuration);
+        SharedApi second = HttpClientProxyFactory.create(SharedApi.class, configuration);
+        first.ping();
+        assertThrows(RateLimitExceededException.class, second::ping);
+        assertSame(configuration.getInterfaceRateLimiter(SharedApi.class),
+                configuration.getInterfaceRateLimiter(SharedApi.class));
+    }
+
+    @Test
+    void tooManyRequestsPausesLaterCalls() {
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "5"));
+        LimitedApi api = HttpClientProxyFactory.create(LimitedApi.class, configuration());
+        RuntimeException e = assertThrows(RuntimeException.class, api::ping);
+        assertFalse(e instanceof RateLimitExceededException);
+        // Retry-After 期间不再发送
+        assertThrows(RateLimitExceededException.class, api::ping);
+        assertEquals(1, server.getRequestCount());
+    }
+}
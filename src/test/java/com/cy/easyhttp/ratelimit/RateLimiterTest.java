@@ -0,0 +1,139 @@
+package com.cy.easyhttp.ratelimit;
+
+import com.cy.easyhttp.annotation.method.RateLimit;
+import com.cy.easyhttp.deadline.Deadline;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * 等待时间在 [expectedMillis - 容差, expectedMillis] 之内，容差覆盖测试自身的执行耗时
+     */
+    private static void assertWait(long expectedMillis, long waitNanos) {
+        assertTrue(waitNanos <= expectedMillis * MILLIS && waitNanos > (expectedMillis - 50) * MILLIS,
+                "expected ~" + expectedMillis + "ms but was " + waitNanos / MILLIS + "ms");
+    }
+
+    private static Response response(int code, String name, String value) {
+        Response.Builder builder = new Response.Builder().request(new Request.Builder().url("http://a/").build())
+                .protocol(Protocol.HTTP_1_1).code(code).message("");
+        if (name != null) {
+            builder.header(name, value);
+        }
+        return builder.build();
+    }
+
+    @Test
+    void burstIsFreeThenSpacedByInterval() {
+        RateLimiter limiter = new RateLimiter("test", 10, 2);
+        assertEquals(0, limiter.reserve(Long.MAX_VALUE));
+        assertEquals(0, limiter.reserve(Long.MAX_VALUE));
+        assertWait(100, limiter.reserve(Long.MAX_VALUE));
+        assertWait(200, limiter.reserve(Long.MAX_VALUE));
+    }
+
+    @Test
+    void rejectedReservationDoesNotConsume() {
+        RateLimiter limiter = new RateLimiter("test", 10, 1);
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(-1, limiter.reserve(50 * MILLIS));
+        assertWait(100, limiter.reserve(Long.MAX_VALUE));
+    }
+
+    @Test
+    void cancelReturnsThePermit() {
+        RateLimiter limiter = new RateLimiter("test", 10, 1);
+        assertTrue(limiter.tryAcquire());
+        assertWait(100, limiter.reserve(Long.MAX_VALUE));
+        limiter.cancel();
+        assertWait(100, limiter.reserve(Long.MAX_VALUE));
+    }
+
+    @Test
+    void pauseDelaysPermitsThenResumesAtRate() {
+        RateLimiter limiter = new RateLimiter("test", 10, 5);
+        limiter.pauseUntil(System.nanoTime() + 1000 * MILLIS);
+        assertWait(1000, limiter.reserve(Long.MAX_VALUE));
+        // 暂停结束后不会一次放出整个突发容量
+        assertWait(1100, limiter.reserve(Long.MAX_VALUE));
+    }
+
+    @Test
+    void failFastRejectsAndReleasesEarlierLimiters() {
+        RateLimiter free = new RateLimiter("free", 10, 1);
+        RateLimiter exhausted = new RateLimiter("exhausted", 1, 1);
+        exhausted.tryAcquire();
+        RateLimiter[] limiters = {free, exhausted};
+        assertThrows(RateLimitExceededException.class,
+                () -> RateLimitPermit.reserve(limiters, RateLimit.Mode.FAIL_FAST, 0, null));
+        assertTrue(free.tryAcquire());
+    }
+
+    @Test
+    void timedWaitsUpToTimeout() {
+        RateLimiter limiter = new RateLimiter("test", 1, 1);
+        limiter.tryAcquire();
+        RateLimiter[] limiters = {limiter};
+        assertThrows(RateLimitExceededException.class,
+                () -> RateLimitPermit.reserve(limiters, RateLimit.Mode.TIMED, 100, null));
+        assertWait(1000, RateLimitPermit.reserve(limiters, RateLimit.Mode.TIMED, 2000, null).getWaitNanos());
+    }
+
+    @Test
+    void blockIsBoundedByDeadline() {
+        RateLimiter limiter = new RateLimiter("test", 1, 1);
+        limiter.tryAcquire();
+        RateLimiter[] limiters = {limiter};
+        assertThrows(RateLimitExceededException.class, () -> RateLimitPermit.reserve(limiters,
+                RateLimit.Mode.BLOCK, 0, Deadline.after(100, TimeUnit.MILLISECONDS)));
+        assertWait(1000, RateLimitPermit.reserve(limiters, RateLimit.Mode.BLOCK, 0, null).getWaitNanos());
+    }
+
+    @Test
+    void blockAwaitsThePermit() {
+        RateLimiter limiter = new RateLimiter("test", 20, 1);
+        limiter.tryAcquire();
+        RateLimitPermit permit = RateLimitPermit.reserve(new RateLimiter[]{limiter}, RateLimit.Mode.BLOCK, 0, null);
+        long start = System.nanoTime();
+        permit.await();
+        assertTrue(System.nanoTime() - start >= permit.getWaitNanos());
+    }
+
+    @Test
+    void retryAfterPausesLimiters() {
+        RateLimiter limiter = new RateLimiter("test", 100, 1);
+        RateLimitPermit permit = RateLimitPermit.reserve(new RateLimiter[]{limiter}, RateLimit.Mode.BLOCK, 0, null);
+        permit.onResponse(response(429, "Retry-After", "2"));
+        assertWait(2000, limiter.reserve(Long.MAX_VALUE));
+    }
+
+    @Test
+    void tooManyRequestsWithoutRetryAfterPausesOneSecond() {
+        RateLimiter limiter = new RateLimiter("test", 100, 1);
+        RateLimitPermit permit = RateLimitPermit.reserve(new RateLimiter[]{limiter}, RateLimit.Mode.BLOCK, 0, null);
+        permit.onResponse(response(429, null, null));
+        assertWait(1000, limiter.reserve(Long.MAX_VALUE));
+    }
+
+    @Test
+    void exhaustedQuotaPausesUntilReset() {
+        RateLimiter limiter = new RateLimiter("test", 100, 1);
+        RateLimitPermit permit = RateLimitPermit.reserve(new RateLimiter[]{limiter}, RateLimit.Mode.BLOCK, 0, null);
+        permit.onResponse(response(200, "RateLimit-Remaining", "0").newBuilder()
+                .header("RateLimit-Reset", "3").build());
+        assertWait(3000, limiter.reserve(Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,199 @@
+package com.cy.easyhttp.schedule;
+
+import com.cy.easyhttp.HttpClient;
+import com.cy.easyhttp.HttpClientConfiguration;
+import com.cy.easyhttp.HttpClientProxyFactory;
+import com.cy.easyhttp.annotation.method.Get;
+import com.cy.easyhttp.deadline.Deadline;
+import com.cy.easyhttp.deadline.DeadlineExceededException;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static com.cy.easyhttp.schedule.RequestPriority.HIGH;
+import static com.cy.easyhttp.schedule.RequestPriority.LOW;
+import static com.cy.easyhttp.schedule.RequestPriority.NORMAL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrioritySchedulerTest {
+
+    @HttpClient
+    interface StreamApi {
+        @Get("/data")
+        InputStream open();
+
+        @Get("/data")
+        String read();
+    }
+
+    /**
+     * 获得许可的顺序
+     */
+    private final BlockingQueue<RequestPriority> granted = new LinkedBlockingQueue<>();
+    private final List<Thread> threads = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.interrupt();
+            thread.join(1000);
+        }
+    }
+
+    /**
+     * 在新线程中排队，返回时请求已进入队列
+     */
+    private void enqueue(PriorityScheduler scheduler, RequestPriority priority) {
+        int before = scheduler.getQueued(priority);
+        Thread thread = new Thread(() -> {
+            scheduler.acquire(priority, null);
+            granted.add(priority);
+        });
+        thread.setDaemon(true);
+        thread.start();
+        threads.add(thread);
+        await(() -> scheduler.getQueued(priority) == before + 1);
+    }
+
+    /**
+     * 逐个归还许可，记录放行顺序；许可由测试线程代为归还
+     */
+    private List<RequestPriority> drain(PriorityScheduler scheduler, int count) throws InterruptedException {
+        List<RequestPriority> order = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            scheduler.release();
+            RequestPriority priority = granted.poll(5, TimeUnit.SECONDS);
+            assertNotNull(priority, "no request was granted");
+            order.add(priority);
+        }
+        return order;
+    }
+
+    @Test
+    void saturatedRequestsAreGrantedByWeight() throws InterruptedException {
+        PriorityScheduler scheduler = PriorityScheduler.newBuilder().maxConcurrent(1)
+                .starvationTimeout(TimeUnit.HOURS.toMillis(1)).build();
+        scheduler.acquire(NORMAL, null);
+        for (RequestPriority priority : Arrays.asList(LOW, LOW, LOW, NORMAL, NORMAL, NORMAL, HIGH, HIGH, HIGH)) {
+            enqueue(scheduler, priority);
+        }
+        // 权重 8:4:1 的平滑加权轮询，高优先级占多数份额但不会独占
+        assertEquals(Arrays.asList(HIGH, NORMAL, HIGH, HIGH, NORMAL, NORMAL, LOW, LOW, LOW), drain(scheduler, 9));
+        assertEquals(1, scheduler.getInFlight());
+    }
+
+    @Test
+    void freeSlotsAreGrantedWithoutQueueing() {
+        PriorityScheduler scheduler = PriorityScheduler.newBuilder().maxConcurrent(2).build();
+        scheduler.acquire(LOW, null);
+        scheduler.acquire(LOW, null);
+        assertEquals(2, scheduler.getInFlight());
+        assertEquals(0, scheduler.getQueued(LOW));
+    }
+
+    @Test
+    void starvedRequestIsPromoted() throws InterruptedException {
+        // 超时为0时所有队首都算等待过久，按入队先后放行
+        PriorityScheduler scheduler = PriorityScheduler.newBuilder().maxConcurrent(1).starvationTimeout(0).build();
+        scheduler.acquire(NORMAL, null);
+        enqueue(scheduler, LOW);
+        enqueue(scheduler, HIGH);
+        enqueue(scheduler, HIGH);
+        assertEquals(Arrays.asList(LOW, HIGH, HIGH), drain(scheduler, 3));
+    }
+
+    @Test
+    void lowPriorityWaitsWithoutStarvationTimeout() throws InterruptedException {
+        PriorityScheduler scheduler = PriorityScheduler.newBuilder().maxConcurrent(1)
+                .starvationTimeout(TimeUnit.HOURS.toMillis(1)).build();
+        scheduler.acquire(NORMAL, null);
+        enqueue(scheduler, LOW);
+        enqueue(scheduler, HIGH);
+        enqueue(scheduler, HIGH);
+        assertEquals(Arrays.asList(HIGH, HIGH, LOW), drain(scheduler, 3));
+    }
+
+    @Test
+    void queuedRequestFailsAtDeadline() {
+        PriorityScheduler scheduler = PriorityScheduler.newBuilder().maxConcurrent(1).build();
+        scheduler.acquire(NORMAL, null);
+        assertThrows(DeadlineExceededException.class,
+                () -> scheduler.acquire(LOW, Deadline.after(50, TimeUnit.MILLISECONDS)));
+        assertEquals(0, scheduler.getQueued(LOW));
+        scheduler.release();
+        assertEquals(0, scheduler.getInFlight());
+    }
+
+    private static StreamApi api(MockWebServer server, PriorityScheduler scheduler, OkHttpClient okHttpClient) {
+        return HttpClientProxyFactory.create(StreamApi.class, HttpClientConfiguration.newBuilder()
+                .baseUrl(server.url("/").toString()).okHttpClient(okHttpClient).scheduler(scheduler).build());
+    }
+
+    @Test
+    void streamHoldsPermitUntilClosed() throws IOException {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setBody("streamed"));
+            server.start();
+            PriorityScheduler scheduler = PriorityScheduler.newBuilder().maxConcurrent(1).build();
+            try (InputStream in = api(server, scheduler, new OkHttpClient()).open()) {
+                assertEquals(1, scheduler.getInFlight());
+                byte[] bytes = new byte[8];
+                assertEquals(8, in.read(bytes));
+                assertEquals(1, scheduler.getInFlight());
+            }
+            assertEquals(0, scheduler.getInFlight());
+        }
+    }
+
+    @Test
+    void nestedCallRunsUnderOuterPermit() throws IOException {
+        try (MockWebServer server = new MockWebServer()) {
+            // 嵌套请求在外层请求发出之前发送
+            server.enqueue(new MockResponse().setBody("token"));
+            server.enqueue(new MockResponse().setBody("outer"));
+            server.start();
+            PriorityScheduler scheduler = PriorityScheduler.newBuilder().maxConcurrent(1).build();
+            AtomicReference<StreamApi> api = new AtomicReference<>();
+            AtomicReference<String> nested = new AtomicReference<>();
+            // 类似在拦截器中刷新令牌：外层请求持有唯一的许可时再次调用同一客户端
+            OkHttpClient okHttpClient = new OkHttpClient.Builder().addInterceptor(chain -> {
+                if (nested.get() == null) {
+                    nested.set("");
+                    nested.set(api.get().read());
+                }
+                return chain.proceed(chain.request());
+            }).build();
+            api.set(api(server, scheduler, okHttpClient));
+            String outer = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> api.get().read());
+            assertEquals("token", nested.get());
+            assertEquals("outer", outer);
+            assertEquals(0, scheduler.getInFlight());
+        }
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.yield();
+        }
+    }
+}
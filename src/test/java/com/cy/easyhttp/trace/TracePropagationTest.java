@@ -0,0 +1,122 @@
+package com.cy.easyhttp.trace;
+
+import com.cy.easyhttp.HttpClient;
+import com.cy.easyhttp.HttpClientConfiguration;
+import com.cy.easyhttp.HttpClientProxyFactory;
+import com.cy.easyhttp.annotation.method.Get;
+import com.cy.easyhttp.transport.OkHttpTransport;
+import com.cy.easyhttp.util.HttpUtil;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TracePropagationTest {
+
+    @HttpClient
+    interface PingApi {
+        @Get("/ping")
+        Map<String, Object> ping();
+
+        @Get("/ping")
+        CompletableFuture<Map<String, Object>> pingAsync();
+    }
+
+    private MockWebServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void httpUtilPropagatesCurrentContext() throws InterruptedException {
+        server.enqueue(new MockResponse().setBody("{}"));
+        HttpUtil httpUtil = new HttpUtil(new OkHttpTransport(new OkHttpClient()), null, Runnable::run, 0);
+        TraceContext context = TraceContext.newRoot();
+        try (TraceContext.Scope ignored = context.attach()) {
+            httpUtil.doGet(server.url("/ping").toString(), Collections.emptyMap(), null, Map.class);
+        }
+        assertEquals(context.traceparent(), server.takeRequest().getHeader(TraceContext.TRACEPARENT));
+    }
+
+    @Test
+    void failingReporterEndsSpanOnce() {
+        server.enqueue(new MockResponse().setBody("{}"));
+        AtomicInteger ended = new AtomicInteger();
+        PingApi api = HttpClientProxyFactory.create(PingApi.class, HttpClientConfiguration.newBuilder()
+                .baseUrl(server.url("/").toString())
+                .tracer(new W3cHttpTracer(span -> {
+                    ended.incrementAndGet();
+                    throw new IllegalStateException("reporter failed");
+                }))
+                .build());
+        assertEquals(Collections.emptyMap(), api.ping());
+        assertEquals(1, ended.get());
+    }
+
+    @Test
+    void failingTracerDoesNotFailCall() {
+        server.enqueue(new MockResponse().setBody("{}"));
+        AtomicInteger ended = new AtomicInteger();
+        HttpTracer tracer = (metadata, parent) -> new HttpSpan() {
+            @Override
+            public TraceContext context() {
+                return null;
+            }
+
+            @Override
+            public void onPhase(Phase phase, long startNanos, long endNanos) {
+            }
+
+            @Override
+            public void end(Throwable error) {
+                ended.incrementAndGet();
+                throw new IllegalStateException("tracer failed");
+            }
+        };
+        PingApi api = HttpClientProxyFactory.create(PingApi.class, HttpClientConfiguration.newBuilder()
+                .baseUrl(server.url("/").toString()).tracer(tracer).build());
+        assertEquals(Collections.emptyMap(), api.ping());
+        assertEquals(1, ended.get());
+    }
+
+    @Test
+    void rejectedAsyncSubmissionEndsSpan() {
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        PingApi api = HttpClientProxyFactory.create(PingApi.class, HttpClientConfiguration.newBuilder()
+                .baseUrl(server.url("/").toString())
+                .tracer(new W3cHttpTracer(span -> errors.add(span.getError())))
+                .asyncExecutor(task -> {
+                    throw new RejectedExecutionException("saturated");
+                })
+                .build());
+        CompletableFuture<Map<String, Object>> future = api.pingAsync();
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertEquals(1, errors.size());
+        assertInstanceOf(RejectedExecutionException.class, errors.get(0));
+    }
+}
@@ -0,0 +1,111 @@
+package com.cy.easyhttp.transport;
+
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimitTransportTest {
+
+    /**
+     * 统计同时持有的响应数，响应体关闭前视为进行中
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private final HttpTransport counting = request -> {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        return new Response.Builder().request(request).protocol(Protocol.HTTP_1_1).code(200).message("OK")
+                .body(ResponseBody.create("ok", null)).build();
+    };
+
+    private static Request get(String host) {
+        return new Request.Builder().url("http://" + host + "/").build();
+    }
+
+    private Response call(HttpTransport transport, String host) throws Exception {
+        Response response = transport.execute(get(host));
+        Thread.sleep(20);
+        inFlight.decrementAndGet();
+        response.close();
+        return response;
+    }
+
+    @Test
+    void limitsSynchronousCallsPerHost() throws Exception {
+        HttpTransport transport = new ConcurrencyLimitTransport(counting, 0, 2);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Response>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(pool.submit(() -> call(transport, "a")));
+            }
+            for (Future<Response> future : futures) {
+                assertEquals(200, future.get(10, TimeUnit.SECONDS).code());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertTrue(maxInFlight.get() <= 2, "max in flight " + maxInFlight.get());
+    }
+
+    @Test
+    void limitsAllHostsTogether() throws Exception {
+        HttpTransport transport = new ConcurrencyLimitTransport(counting, 3, 0);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Response>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                String host = "h" + i;
+                futures.add(pool.submit(() -> call(transport, host)));
+            }
+            for (Future<Response> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertTrue(maxInFlight.get() <= 3, "max in flight " + maxInFlight.get());
+    }
+
+    @Test
+    void slotIsHeldUntilBodyIsClosed() throws IOException {
+        HttpTransport transport = new ConcurrencyLimitTransport(counting, 0, 1);
+        Response first = transport.execute(get("a"));
+        // 另一个host不受影响
+        transport.execute(get("b")).close();
+        assertThrows(InterruptedIOException.class,
+                () -> transport.execute(get("a"), TimeUnit.MILLISECONDS.toNanos(50)));
+
+        assertEquals("ok", first.body().string());
+        first.close();
+        transport.execute(get("a"), TimeUnit.SECONDS.toNanos(1)).close();
+    }
+
+    @Test
+    void slotIsReleasedWhenDelegateFails() throws IOException {
+        HttpTransport transport = new ConcurrencyLimitTransport(request -> {
+            throw new IOException("refused");
+        }, 1, 1);
+        assertThrows(IOException.class, () -> transport.execute(get("a")));
+        // 名额已归还，第二次仍然到达传输层而不是排队超时
+        IOException e = assertThrows(IOException.class,
+                () -> transport.execute(get("a"), TimeUnit.MILLISECONDS.toNanos(50)));
+        assertEquals("refused", e.getMessage());
+    }
+}
@@ -0,0 +1,150 @@
+package com.cy.easyhttp.util;
+
+import com.cy.easyhttp.HttpClient;
+import com.cy.easyhttp.HttpClientConfiguration;
+import com.cy.easyhttp.HttpClientProxyFactory;
+import com.cy.easyhttp.annotation.method.Get;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EasySerializerTest {
+
+    @HttpClient
+    interface ScalarApi {
+        @Get("/text")
+        String text();
+
+        @Get("/text")
+        int number();
+
+        @Get("/text")
+        Boolean flag();
+
+        @Get("/items")
+        List<Item> items();
+    }
+
+    public static class Item {
+        public int id;
+        public String name;
+    }
+
+    /**
+     * 统计创建 ObjectReader 的次数
+     */
+    static class CountingMapper extends ObjectMapper {
+        final AtomicInteger readers = new AtomicInteger();
+
+        CountingMapper() {
+            super(EasySerializer.defaultObjectMapper());
+        }
+
+        @Override
+        public ObjectReader readerFor(JavaType type) {
+            readers.incrementAndGet();
+            return super.readerFor(type);
+        }
+    }
+
+    private static final Type ITEMS = new TypeReference<List<Item>>() {
+    }.getType();
+
+    @Test
+    void scalarsAreConvertedFromRawText() {
+        EasySerializer serializer = EasySerializer.getDefault();
+        assertEquals("not json", serializer.read("not json", String.class));
+        assertEquals(42, (int) serializer.read("42", int.class));
+        assertEquals(42L, (long) serializer.read("42", Long.class));
+        assertEquals(1.5d, serializer.<Double>read("1.5", double.class));
+        assertEquals(1.5f, serializer.<Float>read("1.5", Float.class));
+        assertEquals(Boolean.TRUE, serializer.read("TRUE", boolean.class));
+        assertEquals(Boolean.FALSE, serializer.read("false", Boolean.class));
+        assertNull(serializer.read("", int.class));
+        assertTrue(EasySerializer.isScalar(int.class));
+        assertFalse(EasySerializer.isScalar(Item.class));
+    }
+
+    @Test
+    void invalidScalarFailsWithTheTargetType() {
+        EasySerializer serializer = EasySerializer.getDefault();
+        RuntimeException e = assertThrows(RuntimeException.class, () -> serializer.read("4x", Integer.class));
+        assertTrue(e.getMessage().contains("Integer"), e.getMessage());
+        assertThrows(RuntimeException.class, () -> serializer.read("yes", boolean.class));
+    }
+
+    @Test
+    void readerIsCreatedOncePerType() {
+        CountingMapper mapper = new CountingMapper();
+        EasySerializer serializer = new EasySerializer(mapper);
+        for (int i = 0; i < 3; i++) {
+            List<Item> items = serializer.read("[{\"id\":" + i + "}]", ITEMS);
+            assertEquals(i, items.get(0).id);
+            serializer.read(new ByteArrayInputStream("{\"id\":1}".getBytes(StandardCharsets.UTF_8)), Item.class);
+        }
+        assertEquals(2, mapper.readers.get());
+    }
+
+    @Test
+    void decodesFromStreamAndClosesIt() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 10_000; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"item").append(i).append("\"}");
+        }
+        json.append(']');
+        AtomicBoolean closed = new AtomicBoolean();
+        InputStream in = new FilterInputStream(new ByteArrayInputStream(json.toString().getBytes(StandardCharsets.UTF_8))) {
+            @Override
+            public void close() throws IOException {
+                closed.set(true);
+                super.close();
+            }
+        };
+        List<Item> items = EasySerializer.getDefault().read(in, ITEMS);
+        assertEquals(10_000, items.size());
+        assertEquals("item9999", items.get(9_999).name);
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void responsesUseScalarTableAndStreamDecoding() throws IOException {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setBody("plain text"));
+            server.enqueue(new MockResponse().setBody("7"));
+            server.enqueue(new MockResponse().setBody("true"));
+            // 分块传输，没有 Content-Length，只能按流解码
+            server.enqueue(new MockResponse().setChunkedBody(
+                    new Buffer().writeUtf8("[{\"id\":1,\"name\":\"a\"},{\"id\":2,\"name\":\"b\"}]"), 8));
+            server.start();
+            ScalarApi api = HttpClientProxyFactory.create(ScalarApi.class,
+                    HttpClientConfiguration.newBuilder().baseUrl(server.url("/").toString()).build());
+            assertEquals("plain text", api.text());
+            assertEquals(7, api.number());
+            assertEquals(Boolean.TRUE, api.flag());
+            List<Item> items = api.items();
+            assertEquals(Arrays.asList(1, 2), Arrays.asList(items.get(0).id, items.get(1).id));
+        }
+    }
+}
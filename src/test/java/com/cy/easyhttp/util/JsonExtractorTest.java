@@ -0,0 +1,80 @@
+package com.cy.easyhttp.util;
+
+import com.cy.easyhttp.annotation.method.Extract;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonExtractorTest {
+
+    interface Envelopes {
+        @Extract(value = "/data", status = "/code", message = "/msg")
+        void sibling();
+
+        @Extract(value = "", status = "/code", message = "/msg")
+        void root();
+
+        @Extract(value = "/data", status = "/data/code")
+        void statusInsideData();
+    }
+
+    private static final Type MAP = Map.class;
+
+    private static <T> T read(String method, String json, Type type) throws NoSuchMethodException {
+        JsonExtractor extractor = JsonExtractor.compile(Envelopes.class.getMethod(method).getAnnotation(Extract.class));
+        return EasySerializer.getDefault().read(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), type, extractor);
+    }
+
+    @Test
+    void extractsSiblingData() throws NoSuchMethodException {
+        Map<String, Object> data = read("sibling", "{\"code\":0,\"msg\":\"ok\",\"data\":{\"id\":1}}", MAP);
+        assertEquals(Collections.singletonMap("id", 1), data);
+    }
+
+    @Test
+    void failsOnErrorStatus() {
+        ResponseEnvelopeException e = assertThrows(ResponseEnvelopeException.class,
+                () -> read("sibling", "{\"code\":500,\"msg\":\"boom\",\"data\":null}", MAP));
+        assertEquals("500", e.getStatus());
+        assertEquals("boom", e.getErrorMessage());
+    }
+
+    @Test
+    void statusInsideRootData() throws NoSuchMethodException {
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("code", 0);
+        expected.put("data", Collections.singletonMap("id", 1));
+        assertEquals(expected, read("root", "{\"code\":0,\"data\":{\"id\":1}}", MAP));
+
+        ResponseEnvelopeException e = assertThrows(ResponseEnvelopeException.class,
+                () -> read("root", "{\"code\":1,\"msg\":\"denied\"}", MAP));
+        assertEquals("1", e.getStatus());
+        assertEquals("denied", e.getErrorMessage());
+    }
+
+    @Test
+    void statusNestedUnderData() throws NoSuchMethodException {
+        Map<String, Object> data = read("statusInsideData", "{\"data\":{\"code\":\"0\",\"id\":1}}", MAP);
+        assertEquals(1, data.get("id"));
+
+        assertThrows(ResponseEnvelopeException.class,
+                () -> read("statusInsideData", "{\"data\":{\"code\":\"9\"}}", MAP));
+        assertThrows(ResponseEnvelopeException.class,
+                () -> read("statusInsideData", "{\"data\":{\"id\":1}}", MAP));
+    }
+
+    @Test
+    void missingDataIsNull() throws NoSuchMethodException {
+        assertNull(read("sibling", "{\"code\":0}", MAP));
+    }
+}
@@ -0,0 +1,201 @@
+package com.cy.easyhttp.util;
+
+import com.cy.easyhttp.transport.OkHttpTransport;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RangedDownloaderTest {
+
+    private static final byte[] CONTENT = new byte[1000];
+
+    static {
+        for (int i = 0; i < CONTENT.length; i++) {
+            CONTENT[i] = (byte) i;
+        }
+    }
+
+    @TempDir
+    Path dir;
+
+    private MockWebServer server;
+    private final List<String> ranges = Collections.synchronizedList(new ArrayList<>());
+    /**
+     * 按 Range 请求头只生效一次的故障响应
+     */
+    private final Map<String, Function<MockResponse, MockResponse>> faults = new ConcurrentHashMap<>();
+    private final List<String> ifRanges = Collections.synchronizedList(new ArrayList<>());
+    private volatile String etag = "\"v1\"";
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String range = request.getHeader("Range");
+                ranges.add(range);
+                String ifRange = request.getHeader("If-Range");
+                if (ifRange != null) {
+                    ifRanges.add(ifRange);
+                    // 与遵循 RFC 7233 的服务端相同：弱ETag不能用于 If-Range，返回完整内容
+                    if (ifRange.startsWith("W/")) {
+                        return new MockResponse().setResponseCode(200).setBody(new Buffer().write(CONTENT));
+                    }
+                }
+                String[] bounds = range.substring("bytes=".length()).split("-");
+                int start = Integer.parseInt(bounds[0]);
+                int end = Math.min(Integer.parseInt(bounds[1]), CONTENT.length - 1);
+                MockResponse response = new MockResponse()
+                        .setResponseCode(206)
+                        .setHeader("ETag", etag)
+                        .setHeader("Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT")
+                        .setHeader("Content-Range", "bytes " + start + "-" + end + "/" + CONTENT.length)
+                        .setBody(new Buffer().write(CONTENT, start, end - start + 1));
+                Function<MockResponse, MockResponse> fault = faults.remove(range);
+                return fault == null ? response : fault.apply(response);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private long download(Path target) throws IOException {
+        return download(target, 1, Runnable::run);
+    }
+
+    private long download(Path target, int parallelism, Executor executor) throws IOException {
+        HttpUtil httpUtil = new HttpUtil(new OkHttpTransport(new OkHttpClient()), null, Runnable::run, 3);
+        Request request = new Request.Builder().url(server.url("/file")).build();
+        return new RangedDownloader(httpUtil, new RangedDownload(parallelism, 100), executor, 3).download(request, target);
+    }
+
+    private long downloadInParallel(Path target) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            return download(target, 4, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void downloadsAllChunks() throws IOException {
+        Path target = dir.resolve("all.bin");
+        assertEquals(CONTENT.length, download(target));
+        assertArrayEquals(CONTENT, Files.readAllBytes(target));
+        assertEquals(10, ranges.size());
+    }
+
+    @Test
+    void resumesFromLastWrittenOffsetAfterTruncation() throws IOException {
+        faults.put("bytes=300-399", response -> response.setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY));
+        Path target = dir.resolve("resume.bin");
+        assertEquals(CONTENT.length, download(target));
+        assertArrayEquals(CONTENT, Files.readAllBytes(target));
+        // 续传请求从已写入的位置开始，而不是分块起点
+        int retried = ranges.lastIndexOf("bytes=300-399");
+        String resumed = ranges.get(retried + 1);
+        assertTrue(resumed.endsWith("-399") && !resumed.equals("bytes=300-399"), resumed);
+    }
+
+    @Test
+    void retriesTransientStatus() throws IOException {
+        faults.put("bytes=500-599", response -> new MockResponse().setResponseCode(503));
+        Path target = dir.resolve("retry.bin");
+        assertEquals(CONTENT.length, download(target));
+        assertArrayEquals(CONTENT, Files.readAllBytes(target));
+        assertEquals(2, Collections.frequency(ranges, "bytes=500-599"));
+    }
+
+    @Test
+    void failsWhenResourceChanged() {
+        faults.put("bytes=200-299", response -> new MockResponse().setResponseCode(200).setBody("changed"));
+        Path target = dir.resolve("changed.bin");
+        IOException e = assertThrows(IOException.class, () -> download(target));
+        assertTrue(e.getMessage().startsWith("Resource changed"), e.getMessage());
+        assertEquals(1, Collections.frequency(ranges, "bytes=200-299"));
+        assertFalse(Files.exists(target));
+    }
+
+    @Test
+    void downloadsChunksInParallel() throws IOException {
+        // 每个分块延迟响应，串行下载需要约 1 秒
+        for (int start = 100; start < CONTENT.length; start += 100) {
+            faults.put("bytes=" + start + "-" + (start + 99),
+                    response -> response.setBodyDelay(100, TimeUnit.MILLISECONDS));
+        }
+        Path target = dir.resolve("parallel.bin");
+        long begin = System.nanoTime();
+        assertEquals(CONTENT.length, downloadInParallel(target));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        assertArrayEquals(CONTENT, Files.readAllBytes(target));
+        assertEquals(10, ranges.size());
+        assertTrue(elapsed < 800, "elapsed " + elapsed + "ms");
+    }
+
+    @Test
+    void resumesDisconnectedChunkInParallel() throws IOException {
+        faults.put("bytes=400-499", response -> response.setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY));
+        faults.put("bytes=700-799", response -> response.setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY));
+        Path target = dir.resolve("parallel-resume.bin");
+        assertEquals(CONTENT.length, downloadInParallel(target));
+        assertArrayEquals(CONTENT, Files.readAllBytes(target));
+        assertEquals(12, ranges.size());
+    }
+
+    @Test
+    void resumesTruncatedProbeChunk() throws IOException {
+        faults.put("bytes=0-99", response -> response.setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY));
+        Path target = dir.resolve("probe.bin");
+        assertEquals(CONTENT.length, download(target));
+        assertArrayEquals(CONTENT, Files.readAllBytes(target));
+        String resumed = ranges.get(1);
+        assertTrue(resumed.endsWith("-99") && !resumed.equals("bytes=0-99"), resumed);
+    }
+
+    @Test
+    void weakEtagFallsBackToLastModified() throws IOException {
+        etag = "W/\"v1\"";
+        Path target = dir.resolve("weak.bin");
+        assertEquals(CONTENT.length, download(target));
+        assertArrayEquals(CONTENT, Files.readAllBytes(target));
+        assertFalse(ifRanges.isEmpty());
+        for (String ifRange : ifRanges) {
+            assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", ifRange);
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.cy.easyhttp.util;
+
+import com.cy.easyhttp.HttpClient;
+import com.cy.easyhttp.HttpClientConfiguration;
+import com.cy.easyhttp.HttpClientProxyFactory;
+import com.cy.easyhttp.annotation.method.Post;
+import com.cy.easyhttp.annotation.param.JsonBody;
+import com.cy.easyhttp.deadline.Deadline;
+import com.cy.easyhttp.deadline.DeadlineExceededException;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class StreamingJsonBodyTest {
+
+    @HttpClient
+    interface UploadApi {
+        @Post("/upload")
+        void iterator(@JsonBody Iterator<Map<String, Object>> items);
+
+        @Post("/upload")
+        void stream(@JsonBody Stream<Map<String, Object>> items);
+
+        @Post("/upload")
+        void publisher(@JsonBody Object publisher);
+
+        @Post("/upload")
+        void iteratorLines(@JsonBody(format = JsonBody.Format.NDJSON) Iterator<Map<String, Object>> items);
+
+        @Post("/upload")
+        void streamLines(@JsonBody(format = JsonBody.Format.NDJSON) Stream<Map<String, Object>> items);
+
+        @Post("/upload")
+        void publisherLines(@JsonBody(format = JsonBody.Format.NDJSON) Object publisher);
+    }
+
+    /**
+     * 元素数超过 PublisherIterator 的预取数量，覆盖补充请求
+     */
+    private static final int COUNT = 200;
+
+    private MockWebServer server;
+    private UploadApi api;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        api = HttpClientProxyFactory.create(UploadApi.class,
+                HttpClientConfiguration.newBuilder().baseUrl(server.url("/").toString()).build());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private static List<Object> items() {
+        List<Object> items = new ArrayList<>();
+        for (int i = 0; i < COUNT; i++) {
+            items.add(Collections.singletonMap("id", i));
+        }
+        return items;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Iterator<Map<String, Object>> iterator() {
+        return (Iterator<Map<String, Object>>) (Iterator<?>) items().iterator();
+    }
+
+    private static Stream<Map<String, Object>> stream() {
+        return IntStream.range(0, COUNT).mapToObj(i -> Collections.singletonMap("id", i));
+    }
+
+    private static String array() {
+        StringBuilder expected = new StringBuilder("[");
+        for (int i = 0; i < COUNT; i++) {
+            expected.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append('}');
+        }
+        return expected.append(']').toString();
+    }
+
+    private static String lines() {
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < COUNT; i++) {
+            expected.append("{\"id\":").append(i).append("}\n");
+        }
+        return expected.toString();
+    }
+
+    private void assertUploaded(String contentType, String body) throws InterruptedException {
+        RecordedRequest request = server.takeRequest(5, TimeUnit.SECONDS);
+        assertTrue(request.getHeader("Content-Type").startsWith(contentType), request.getHeader("Content-Type"));
+        assertEquals("chunked", request.getHeader("Transfer-Encoding"));
+        assertEquals(body, request.getBody().readUtf8());
+    }
+
+    @Test
+    void iteratorAsArrayAndLines() throws InterruptedException {
+        server.enqueue(new MockResponse());
+        server.enqueue(new MockResponse());
+        api.iterator(iterator());
+        assertUploaded("application/json", array());
+        api.iteratorLines(iterator());
+        assertUploaded("application/x-ndjson", lines());
+    }
+
+    @Test
+    void streamAsArrayAndLinesIsClosed() throws InterruptedException {
+        server.enqueue(new MockResponse());
+        server.enqueue(new MockResponse());
+        AtomicBoolean closed = new AtomicBoolean();
+        api.stream(stream().onClose(() -> closed.set(true)));
+        assertUploaded("application/json", array());
+        assertTrue(closed.get());
+        api.streamLines(stream());
+        assertUploaded("application/x-ndjson", lines());
+    }
+
+    @Test
+    void publisherAsArrayAndLines() throws InterruptedException {
+        server.enqueue(new MockResponse());
+        server.enqueue(new MockResponse());
+        api.publisher(new FlowPublisher(items(), null).proxy());
+        assertUploaded("application/json", array());
+        api.publisherLines(new FlowPublisher(items(), null).proxy());
+        assertUploaded("application/x-ndjson", lines());
+    }
+
+    @Test
+    void failingIteratorFailsTheCall() {
+        server.enqueue(new MockResponse());
+        Iterator<Map<String, Object>> failing = new Iterator<Map<String, Object>>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                if (index == 3) {
+                    throw new IllegalStateException("source failed");
+                }
+                return true;
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return Collections.singletonMap("id", index++);
+            }
+        };
+        assertFailedWith("source failed", assertThrows(RuntimeException.class, () -> api.iterator(failing)));
+    }
+
+    @Test
+    void failingStreamIsClosed() {
+        server.enqueue(new MockResponse());
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<Map<String, Object>> failing = stream().peek(item -> {
+            if (item.get("id").equals(3)) {
+                throw new IllegalStateException("source failed");
+            }
+        }).onClose(() -> closed.set(true));
+        assertFailedWith("source failed", assertThrows(RuntimeException.class, () -> api.stream(failing)));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void failingPublisherFailsTheCall() {
+        server.enqueue(new MockResponse());
+        FlowPublisher publisher = new FlowPublisher(items().subList(0, 3), new IllegalStateException("source failed"));
+        assertFailedWith("source failed", assertThrows(RuntimeException.class, () -> api.publisher(publisher.proxy())));
+    }
+
+    @Test
+    void deadlineExpiresWhileWaitingOnPublisher() {
+        server.enqueue(new MockResponse());
+        // 订阅后不发出任何元素
+        FlowPublisher publisher = new FlowPublisher(null, null);
+        long start = System.nanoTime();
+        try (Deadline.Scope ignored = Deadline.after(200, TimeUnit.MILLISECONDS).attach()) {
+            assertThrows(DeadlineExceededException.class, () -> api.publisher(publisher.proxy()));
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        assertTrue(publisher.cancelled);
+    }
+
+    @Test
+    void publisherIgnoringDemandFailsTheCall() {
+        server.enqueue(new MockResponse());
+        FlowPublisher publisher = new FlowPublisher(items(), null);
+        publisher.ignoreDemand = true;
+        assertFailedWith("Publisher emitted more elements than requested",
+                assertThrows(RuntimeException.class, () -> api.publisher(publisher.proxy())));
+        assertTrue(publisher.cancelled);
+    }
+
+    @Test
+    void iteratorReportsDeadlineWhileWaitingOnPublisher() {
+        FlowPublisher publisher = new FlowPublisher(null, null);
+        try (Deadline.Scope ignored = Deadline.after(50, TimeUnit.MILLISECONDS).attach();
+             PublisherIterator iterator = new PublisherIterator(publisher.proxy())) {
+            assertThrows(DeadlineExceededException.class, iterator::hasNext);
+        }
+    }
+
+    private static void assertFailedWith(String message, Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (message.equals(e.getMessage())) {
+                return;
+            }
+        }
+        throw new AssertionError("expected cause '" + message + "'", error);
+    }
+
+    /**
+     * 通过反射实现的 java.util.concurrent.Flow.Publisher，测试源码按 Java 8 编译，
+     * 在 Java 8 上运行时跳过相关测试。按 request 的数量同步发出元素。
+     */
+    static final class FlowPublisher {
+        /**
+         * 要发出的元素，为null时从不发出
+         */
+        private final List<Object> items;
+        private final RuntimeException failure;
+        /**
+         * 不遵守背压，订阅后一次发出全部元素
+         */
+        private boolean ignoreDemand;
+        private volatile boolean cancelled;
+        private Object subscriber;
+        private Method onNext;
+        private Method onError;
+        private Method onComplete;
+        private long demand;
+        private int index;
+        private boolean emitting;
+        private boolean finished;
+
+        FlowPublisher(List<Object> items, RuntimeException failure) {
+            this.items = items;
+            this.failure = failure;
+        }
+
+        Object proxy() {
+            Class<?> publisherType;
+            Class<?> subscriberType;
+            Class<?> subscriptionType;
+            try {
+                publisherType = Class.forName("java.util.concurrent.Flow$Publisher");
+                subscriberType = Class.forName("java.util.concurrent.Flow$Subscriber");
+                subscriptionType = Class.forName("java.util.concurrent.Flow$Subscription");
+            } catch (ClassNotFoundException e) {
+                assumeTrue(false, "java.util.concurrent.Flow requires Java 9+");
+                return null;
+            }
+            Object subscription = Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{subscriptionType},
+                    (proxy, method, args) -> {
+                        if ("request".equals(method.getName())) {
+                            request((Long) args[0]);
+                        } else if ("cancel".equals(method.getName())) {
+                            cancelled = true;
+                        }
+                        return null;
+                    });
+            return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{publisherType},
+                    (proxy, method, args) -> {
+                        if ("subscribe".equals(method.getName())) {
+                            subscriber = args[0];
+                            onNext = subscriberType.getMethod("onNext", Object.class);
+                            onError = subscriberType.getMethod("onError", Throwable.class);
+                            onComplete = subscriberType.getMethod("onComplete");
+                            subscriberType.getMethod("onSubscribe", subscriptionType).invoke(subscriber, subscription);
+                        }
+                        return null;
+                    });
+        }
+
+        private synchronized void request(long n) throws ReflectiveOperationException {
+            if (items == null) {
+                return;
+            }
+            demand = ignoreDemand ? Long.MAX_VALUE : demand + n;
+            if (emitting) {
+                return;
+            }
+            emitting = true;
+            try {
+                while (demand > 0 && index < items.size() && !cancelled) {
+                    demand--;
+                    onNext.invoke(subscriber, items.get(index++));
+                }
+                if (index == items.size() && !finished && !cancelled) {
+                    finished = true;
+                    if (failure != null) {
+                        onError.invoke(subscriber, failure);
+                    } else {
+                        onComplete.invoke(subscriber);
+                    }
+                }
+            } finally {
+                emitting = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.cy.easyhttp.util;
+
+import okhttp3.HttpUrl;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UrlTemplateTest {
+
+    private static final HttpUrl BASE = HttpUrl.get("http://localhost/api");
+
+    @Test
+    void encodesPathVariablesAsSegments() {
+        Map<String, Integer> variables = new HashMap<>();
+        variables.put("id", 0);
+        UrlTemplate template = UrlTemplate.compile(BASE, "/user/{id}?type=1", variables, Collections.emptyList());
+        assertEquals("http://localhost/api/user/a%2Fb%20c?type=1", template.expand(new Object[]{"a/b c"}).toString());
+    }
+
+    @Test
+    void emptyPathKeepsTrailingSlash() {
+        UrlTemplate template = UrlTemplate.compile(BASE, "", Collections.emptyMap(), Collections.emptyList());
+        assertEquals("http://localhost/api/", template.expand(new Object[0]).toString());
+        UrlTemplate root = UrlTemplate.compile(HttpUrl.get("http://localhost"), "", Collections.emptyMap(),
+                Collections.emptyList());
+        assertEquals("http://localhost/", root.expand(new Object[0]).toString());
+    }
+
+    @Test
+    void optionalNullQueryParamIsSkipped() {
+        UrlTemplate template = UrlTemplate.compile(BASE, "/list", Collections.emptyMap(),
+                Arrays.asList(new UrlTemplate.QueryBinding("q", 0, false), new UrlTemplate.QueryBinding("id", 1, false)));
+        assertEquals("http://localhost/api/list?id=1&id=2",
+                template.expand(new Object[]{null, Arrays.asList(1, 2)}).toString());
+    }
+
+    @Test
+    void requiredNullQueryParamIsRejected() {
+        UrlTemplate template = UrlTemplate.compile(BASE, "/list", Collections.emptyMap(),
+                Collections.singletonList(new UrlTemplate.QueryBinding("q", 0, true)));
+        assertThrows(IllegalArgumentException.class, () -> template.expand(new Object[]{null}));
+    }
+
+    @Test
+    void mixedSegmentKeepsEncodedLiteral() {
+        Map<String, Integer> variables = new HashMap<>();
+        variables.put("version", 0);
+        variables.put("tag", 1);
+        UrlTemplate template = UrlTemplate.compile(BASE, "/v{version}%2Bbeta?tag=t-{tag}%2B", variables,
+                Collections.emptyList());
+        assertEquals("http://localhost/api/v2%2Fx%25%2Bbeta?tag=t-a%26b%2B%25%2B",
+                template.expand(new Object[]{"2/x%", "a&b+%"}).toString());
+    }
+
+    @Test
+    void mixedSegmentEncodesValuesLikeOkHttp() {
+        String value = "a b/c?d#e%f+g&h=i\u00e9\u4e2d{|}^`<>\"~!$'()*,;:@[]";
+        Map<String, Integer> variables = Collections.singletonMap("v", 0);
+        HttpUrl expected = BASE.newBuilder().addPathSegment(value).addQueryParameter("q", value).build();
+        HttpUrl actual = UrlTemplate.compile(BASE, "/{v}?q={v}", variables, Collections.emptyList())
+                .expand(new Object[]{value});
+        assertEquals(expected, actual);
+        HttpUrl mixed = UrlTemplate.compile(BASE, "/x{v}?q=x{v}", variables, Collections.emptyList())
+                .expand(new Object[]{value});
+        assertEquals("x" + expected.encodedPathSegments().get(1), mixed.encodedPathSegments().get(1));
+        assertEquals("x" + expected.encodedQuery().substring(2), mixed.encodedQuery().substring(2));
+    }
+}